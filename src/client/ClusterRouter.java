@@ -0,0 +1,318 @@
+package client;
+
+import common.ElectionService;
+import common.QuizReadService;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+
+/**
+ * Decides which node each of the client's calls goes to.
+ *
+ * Every known node keeps its resolved stubs (registry, QuizReadService and its
+ * Node_X ElectionService). RMI stubs are thread-safe and share connections, so
+ * one of each per node is the whole pool. Stubs are dropped when a call fails
+ * with a connection error and looked up again on next use.
+ *
+ * Reads use "power of two choices": pick two healthy nodes at random and use
+ * the one with the lower latency x (in-flight + 1). Latency is measured on the
+ * reads themselves; nothing pings the nodes. A node that failed a call is
+ * skipped for client.retryDownMs, then tried again by real traffic. Writes
+ * stay pinned to the leader; failoverOrder() puts the leader first.
+ *
+ * The leader id and topology are asked of one node (getCurrentLeaderId /
+ * getClusterTopology) every client.topologyRefreshMs and soon after any call
+ * fails. The leader id is matched to an address through each node's Node_X
+ * binding, so ids need not follow the order of the topology list.
+ */
+public class ClusterRouter {
+
+    public interface ReadCall<T> {
+        T call(QuizReadService reads) throws Exception;
+    }
+
+    private static final class Node {
+        final String address;
+        volatile Registry registry;
+        volatile QuizReadService reads;
+        volatile ElectionService election;
+        volatile int id = -1; // From its Node_X binding, once looked up
+        volatile boolean healthy = true;
+        volatile long failedAtNanos;
+        volatile double latencyMicros = -1;
+        final AtomicInteger inFlight = new AtomicInteger();
+
+        Node(String address) {
+            this.address = address;
+        }
+
+        Registry registry() throws Exception {
+            Registry r = registry;
+            if (r == null) {
+                String[] parts = address.split(":");
+                r = LocateRegistry.getRegistry(parts[0], Integer.parseInt(parts[1]));
+                registry = r;
+            }
+            return r;
+        }
+
+        QuizReadService reads() throws Exception {
+            QuizReadService s = reads;
+            if (s == null) {
+                s = (QuizReadService) registry().lookup("QuizReadService");
+                reads = s;
+            }
+            return s;
+        }
+
+        ElectionService election() throws Exception {
+            ElectionService s = election;
+            if (s == null) {
+                // Node ids are not known from the address alone; the registry has one Node_X
+                for (String name : registry().list()) {
+                    if (name.startsWith("Node_")) {
+                        s = (ElectionService) registry().lookup(name);
+                        id = Integer.parseInt(name.substring("Node_".length()));
+                        break;
+                    }
+                }
+                if (s == null) {
+                    throw new java.rmi.NotBoundException("No Node_ binding at " + address);
+                }
+                election = s;
+            }
+            return s;
+        }
+
+        void observe(long nanos) {
+            double micros = nanos / 1000.0;
+            latencyMicros = latencyMicros < 0 ? micros : latencyMicros * 0.8 + micros * 0.2;
+            healthy = true;
+        }
+
+        void fail() {
+            healthy = false;
+            failedAtNanos = System.nanoTime();
+            registry = null;
+            reads = null;
+            election = null;
+        }
+
+        /** Healthy, or down long enough that the next call may try it again. */
+        boolean usable(long retryDownNanos) {
+            return healthy || System.nanoTime() - failedAtNanos > retryDownNanos;
+        }
+
+        double load() {
+            return Math.max(0, latencyMicros) * (inFlight.get() + 1);
+        }
+    }
+
+    private final List<Node> nodes = new CopyOnWriteArrayList<>();
+    private final Predicate<Exception> isConnectionError;
+    private final long retryDownNanos;
+    private final ScheduledExecutorService refresher;
+    private final AtomicBoolean refreshQueued = new AtomicBoolean();
+    private volatile String leaderAddress;
+
+    public ClusterRouter(List<String> seeds, long topologyRefreshMs, long retryDownMs,
+            Predicate<Exception> isConnectionError) {
+        this.isConnectionError = isConnectionError;
+        this.retryDownNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, retryDownMs));
+        setTopology(seeds);
+        refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "cluster-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        long interval = Math.max(1000, topologyRefreshMs);
+        refresher.scheduleWithFixedDelay(this::refresh, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /** Adds any addresses not known yet. */
+    public synchronized void setTopology(List<String> addresses) {
+        for (String addr : addresses) {
+            if (find(addr) == null) {
+                nodes.add(new Node(addr));
+            }
+        }
+    }
+
+    /** Called when a QuizService was found at 'address' (only the leader binds one). */
+    public void noteLeader(String address) {
+        setTopology(java.util.Collections.singletonList(address));
+        leaderAddress = address;
+    }
+
+    /**
+     * Runs a read on a node picked by power of two choices. On a connection error
+     * the node is marked down and the next pick is tried; application errors are
+     * thrown as they are.
+     */
+    public <T> T read(ReadCall<T> call) throws Exception {
+        List<Node> tried = new ArrayList<>();
+        Exception last = null;
+        Node n;
+        while ((n = choose(tried)) != null) {
+            tried.add(n);
+            n.inFlight.incrementAndGet();
+            long start = System.nanoTime();
+            try {
+                T result = call.call(n.reads());
+                n.observe(System.nanoTime() - start);
+                return result;
+            } catch (Exception e) {
+                if (!isConnectionError.test(e) && !(e instanceof java.rmi.NotBoundException)) {
+                    n.observe(System.nanoTime() - start);
+                    throw e;
+                }
+                n.fail();
+                refreshSoon();
+                last = e;
+            } finally {
+                n.inFlight.decrementAndGet();
+            }
+        }
+        throw last != null ? last : new java.rmi.ConnectException("No reachable node");
+    }
+
+    private Node choose(List<Node> tried) {
+        List<Node> candidates = new ArrayList<>();
+        for (Node n : nodes) {
+            if (n.usable(retryDownNanos) && !tried.contains(n)) {
+                candidates.add(n);
+            }
+        }
+        if (candidates.isEmpty()) {
+            // Nothing known healthy: try the rest anyway, they may be back
+            for (Node n : nodes) {
+                if (!tried.contains(n)) {
+                    candidates.add(n);
+                }
+            }
+        }
+        if (candidates.size() <= 1) {
+            return candidates.isEmpty() ? null : candidates.get(0);
+        }
+        ThreadLocalRandom rnd = ThreadLocalRandom.current();
+        int i = rnd.nextInt(candidates.size());
+        int j = rnd.nextInt(candidates.size() - 1);
+        if (j >= i) {
+            j++;
+        }
+        Node a = candidates.get(i);
+        Node b = candidates.get(j);
+        return a.load() <= b.load() ? a : b;
+    }
+
+    /** Where to look for the leader: the known leader, then healthy nodes by latency, then the rest. */
+    public List<String> failoverOrder() {
+        List<Node> sorted = new ArrayList<>(nodes);
+        sorted.sort(Comparator.comparing((Node n) -> !n.healthy).thenComparingDouble(Node::load));
+        List<String> order = new ArrayList<>();
+        String leader = leaderAddress;
+        if (leader != null) {
+            order.add(leader);
+        }
+        for (Node n : sorted) {
+            if (!n.address.equals(leader)) {
+                order.add(n.address);
+            }
+        }
+        return order;
+    }
+
+    /** Queues a topology refresh after a failed call; several failures share one. */
+    private void refreshSoon() {
+        if (refreshQueued.compareAndSet(false, true)) {
+            try {
+                refresher.execute(this::refresh);
+            } catch (java.util.concurrent.RejectedExecutionException e) {
+                refreshQueued.set(false); // Shut down
+            }
+        }
+    }
+
+    /** Asks nodes, best first, for the leader and topology until one knows the leader. */
+    private void refresh() {
+        refreshQueued.set(false);
+        for (String address : failoverOrder()) {
+            Node n = find(address);
+            if (n == null) {
+                continue;
+            }
+            try {
+                ElectionService es = n.election();
+                int leaderId = es.getCurrentLeaderId();
+                List<String> topology = es.getClusterTopology();
+                if (topology != null && !topology.isEmpty()) {
+                    setTopology(topology);
+                }
+                if (leaderId > 0) {
+                    String leader = addressOf(leaderId);
+                    if (leader != null) {
+                        leaderAddress = leader;
+                    }
+                    return;
+                }
+            } catch (Exception e) {
+                n.fail();
+            }
+        }
+    }
+
+    /** Address of the node bound as Node_&lt;id&gt;, resolving bindings not looked up yet. */
+    private String addressOf(int id) {
+        for (Node n : nodes) {
+            if (n.id == id) {
+                return n.address;
+            }
+        }
+        for (Node n : nodes) {
+            if (n.id < 0) {
+                try {
+                    n.election();
+                } catch (Exception e) {
+                    n.fail();
+                    continue;
+                }
+                if (n.id == id) {
+                    return n.address;
+                }
+            }
+        }
+        return null;
+    }
+
+    private Node find(String address) {
+        for (Node n : nodes) {
+            if (n.address.equals(address)) {
+                return n;
+            }
+        }
+        return null;
+    }
+
+    public String getStats() {
+        StringBuilder sb = new StringBuilder("Router: leader=" + leaderAddress);
+        for (Node n : nodes) {
+            sb.append(String.format("%n  %s id=%d healthy=%s latency=%.0fus inFlight=%d", n.address, n.id,
+                    n.healthy, n.latencyMicros, n.inFlight.get()));
+        }
+        return sb.toString();
+    }
+
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+}
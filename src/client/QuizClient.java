@@ -47,10 +47,16 @@ public class QuizClient extends JFrame {
 
     private java.util.Properties config;
     private java.util.List<String> serverList = new java.util.ArrayList<>();
+    // Picks the node for each call: reads spread over the cluster, writes to the leader
+    private ClusterRouter router;
 
     private void connectToServer() {
+        loadConfig();
+        router = new ClusterRouter(serverList,
+                Long.parseLong(config.getProperty("client.topologyRefreshMs", "60000").trim()),
+                Long.parseLong(config.getProperty("client.retryDownMs", "5000").trim()),
+                this::isConnectionError);
         new Thread(() -> {
-            loadConfig();
 
             // 1. Try Config First
             boolean connected = tryConnectToKnownServers();
@@ -67,7 +73,7 @@ public class QuizClient extends JFrame {
     }
 
     private boolean tryConnectToKnownServers() {
-        for (String serverAddr : serverList) {
+        for (String serverAddr : router.failoverOrder()) {
             if (attemptConnection(serverAddr)) {
                 return true;
             }
@@ -86,6 +92,7 @@ public class QuizClient extends JFrame {
 
             try {
                 service = (QuizService) registry.lookup("QuizService");
+                router.noteLeader(serverAddr); // Writes stay pinned here
                 System.out.println("Connected to Leader/Node at " + serverAddr);
                 return true;
             } catch (java.rmi.NotBoundException nbe) {
@@ -144,6 +151,7 @@ public class QuizClient extends JFrame {
                             serverList.add(s);
                         }
                     }
+                    router.setTopology(cluster);
                     if (connectionStatusLbl != null) {
                         connectionStatusLbl.setText("Cluster Synced (" + cluster.size() + " nodes)");
                     }
@@ -166,6 +174,7 @@ public class QuizClient extends JFrame {
                     String cleanInput = input.trim();
                     if (attemptConnection(cleanInput)) {
                         serverList.add(0, cleanInput); // Add to front
+                        router.setTopology(java.util.Collections.singletonList(cleanInput));
                         System.out.println("Connected to manually entered server: " + cleanInput);
                         JOptionPane.showMessageDialog(this, "Connected successfully!");
                         updateTopology(); // SYNC NOW
@@ -210,30 +219,17 @@ public class QuizClient extends JFrame {
         } catch (Exception e) {
             // Check if it's a logic error (App Exception) vs Network Error
             if (!isConnectionError(e)) {
-                String msg = e.getMessage();
-                // Clean up RMI wrapper noise
-                if (msg != null) {
-                    if (msg.contains("nested exception is:")) {
-                        int index = msg.lastIndexOf("java.rmi.RemoteException:");
-                        if (index != -1) {
-                            msg = msg.substring(index + "java.rmi.RemoteException:".length()).trim();
-                        }
-                    }
-                    if (msg.contains("Server Exception:")) {
-                        msg = msg.replace("Server Exception:", "").trim();
-                    }
-                }
-                final String showMsg = (msg == null || msg.isEmpty()) ? "Unknown Error" : msg;
-                SwingUtilities.invokeLater(
-                        () -> JOptionPane.showMessageDialog(this, showMsg, "Error", JOptionPane.ERROR_MESSAGE));
+                showAppError(e);
                 return null;
             }
 
             System.err.println("RMI Call Failed: " + e.getMessage());
             // Try to reconnect with Failover (Limitless retry? Or One pass?)
-            System.out.println("Attempting Failover Reconnect to " + serverList.size() + " nodes...");
+            // Known leader first, then the healthiest nodes (they redirect to the new leader)
+            java.util.List<String> order = router.failoverOrder();
+            System.out.println("Attempting Failover Reconnect to " + order.size() + " nodes...");
 
-            for (String serverAddr : serverList) {
+            for (String serverAddr : order) {
                 if (attemptConnection(serverAddr)) {
                     System.out.println("Reconnected to " + serverAddr);
                     try {
@@ -266,6 +262,43 @@ public class QuizClient extends JFrame {
         return msg.contains("connection refused") || msg.contains("connection reset") || msg.contains("refused to host")
                 || msg.contains("lookup");
     }
+
+    // Shows an application error (bad code, already submitted...) to the user
+    private void showAppError(Exception e) {
+        String msg = e.getMessage();
+        // Clean up RMI wrapper noise
+        if (msg != null) {
+            if (msg.contains("nested exception is:")) {
+                int index = msg.lastIndexOf("java.rmi.RemoteException:");
+                if (index != -1) {
+                    msg = msg.substring(index + "java.rmi.RemoteException:".length()).trim();
+                }
+            }
+            if (msg.contains("Server Exception:")) {
+                msg = msg.replace("Server Exception:", "").trim();
+            }
+        }
+        final String showMsg = (msg == null || msg.isEmpty()) ? "Unknown Error" : msg;
+        SwingUtilities.invokeLater(
+                () -> JOptionPane.showMessageDialog(this, showMsg, "Error", JOptionPane.ERROR_MESSAGE));
+    }
+
+    // ---------------- READ OFFLOAD ----------------
+    // Exam-start reads go to a QuizReadService chosen by the router (backups bind
+    // one too), so a room of students starting together is spread across the
+    // cluster. Writes and everything else stay on the leader's QuizService.
+    private <T> T executeRead(ClusterRouter.ReadCall<T> task) {
+        try {
+            return router.read(task);
+        } catch (Exception e) {
+            if (!isConnectionError(e) && !(e instanceof java.rmi.NotBoundException)) {
+                showAppError(e);
+                return null;
+            }
+            System.err.println("No read node reachable (" + e.getMessage() + "). Using the leader.");
+        }
+        return executeSafe(() -> task.call(service));
+    }
     // -----------------------------------------------------------
 
     private JPanel createLoadingPanel() {
@@ -463,12 +496,12 @@ public class QuizClient extends JFrame {
         java.awt.event.ActionListener refreshAction = e -> {
             new Thread(() -> {
                 try {
-                    List<common.Subject> exams = executeSafe(() -> service.getSubjectsByCreator(currentUser.getId()));
+                    List<common.Subject> exams = executeSafe(() -> service.getCreatorExamOverview(currentUser.getId()));
                     SwingUtilities.invokeLater(() -> {
                         model.setRowCount(0);
                         if (exams != null) {
                             for (common.Subject exam : exams) {
-                                int qCount = executeSafe(() -> service.getQuestionCount(exam.getId()));
+                                int qCount = exam.getQuestionCount();
                                 String nextStep = "";
                                 switch (exam.getStatus()) {
                                     case "PENDING_REVIEW":
@@ -656,7 +689,7 @@ public class QuizClient extends JFrame {
         new Thread(() -> {
             try {
                 // 1. Validate Code
-                common.Subject subject = executeSafe(() -> service.validateSubjectCode(code, currentUser.getId()));
+                common.Subject subject = executeRead(r -> r.validateSubjectCode(code, currentUser.getId()));
 
                 if (subject != null) {
                     // 2. Load Questions for this Subject
@@ -772,12 +805,12 @@ public class QuizClient extends JFrame {
         java.awt.event.ActionListener refreshAction = e -> {
             new Thread(() -> {
                 try {
-                    List<common.Subject> exams = executeSafe(() -> service.getPendingExams());
+                    List<common.Subject> exams = executeSafe(() -> service.getPendingExamOverview());
                     SwingUtilities.invokeLater(() -> {
                         model.setRowCount(0);
                         if (exams != null) {
                             for (common.Subject exam : exams) {
-                                int qCount = executeSafe(() -> service.getQuestionCount(exam.getId()));
+                                int qCount = exam.getQuestionCount();
                                 String nextStep = "";
                                 switch (exam.getStatus()) {
                                     case "PENDING_REVIEW":
@@ -992,6 +1025,8 @@ public class QuizClient extends JFrame {
         return panel;
     }
 
+    private static final int STUDENTS_PAGE_SIZE = 50;
+
     private JPanel createStudentsTab() {
         JPanel panel = new JPanel(new BorderLayout(10, 10));
         panel.setBackground(CLR_BG);
@@ -1049,6 +1084,19 @@ public class QuizClient extends JFrame {
         scroll.setBorder(new EmptyBorder(0, 10, 10, 10));
         panel.add(scroll, BorderLayout.CENTER);
 
+        // Pager: the server filters, ranks and pages, so each refresh moves one page
+        JPanel pager = new JPanel(new FlowLayout(FlowLayout.RIGHT, 5, 5));
+        pager.setBackground(CLR_BG);
+        JButton prevBtn = createStyledButton("< Prev");
+        JButton nextBtn = createStyledButton("Next >");
+        JLabel pageLabel = new JLabel(" ");
+        prevBtn.setEnabled(false);
+        nextBtn.setEnabled(false);
+        pager.add(pageLabel);
+        pager.add(prevBtn);
+        pager.add(nextBtn);
+        panel.add(pager, BorderLayout.SOUTH);
+
         // Load Exams into Selector
         new Thread(() -> {
             List<common.Subject> exams = executeSafe(() -> service.getAllSubjects());
@@ -1061,54 +1109,67 @@ public class QuizClient extends JFrame {
             });
         }).start();
 
+        // Paging state (touched on the EDT only)
+        java.util.List<String> pageCursors = new java.util.ArrayList<>(); // Cursor that starts page N
+        pageCursors.add(null);
+        int[] pageState = { 0, -1 }; // Current page, total matches
+        boolean[] rankMode = { false };
+
         // Logic
-        java.awt.event.ActionListener refreshAction = e -> {
+        java.util.function.IntConsumer loadPage = page -> {
             common.Subject selectedExam = (common.Subject) examSelector.getSelectedItem();
-            if (selectedExam == null) {
-                // Determine if this was an automatic refresh or user interaction
-                // For safety, just return silently or log, but user sees "Select Exam"
+            if (selectedExam == null || page < 0 || page >= pageCursors.size()) {
                 return;
             }
+            String query = searchField.getText().trim();
+            boolean onlySubmitted = showSubmittedOnly.isSelected();
+            boolean ranked = rankMode[0];
+            String cursor = pageCursors.get(page);
 
             new Thread(() -> {
-                try {
-                    List<User> students = executeSafe(() -> service.getStudentSubmissionsForExam(selectedExam.getId()));
-                    SwingUtilities.invokeLater(() -> {
-                        model.setRowCount(0);
-                        if (students != null) {
-                            String query = searchField.getText().trim().toLowerCase(); // TRIMMED
-                            boolean onlySubmitted = showSubmittedOnly.isSelected(); // Checkbox state
-
-                            if (e.getSource() == rankBtn) {
-                                students.sort((s1, s2) -> Integer.compare(s2.getScore(), s1.getScore()));
-                            } else {
-                                students.sort((s1, s2) -> Integer.compare(s1.getId(), s2.getId()));
-                            }
-
-                            for (User s : students) {
-                                // Filter by Submitted Only
-                                if (onlySubmitted && !s.hasSubmitted()) {
-                                    continue;
-                                }
+                common.SubmissionPage result = executeSafe(() -> service.getSubmissionPage(selectedExam.getId(),
+                        query, onlySubmitted, ranked, STUDENTS_PAGE_SIZE, cursor));
+                SwingUtilities.invokeLater(() -> {
+                    model.setRowCount(0);
+                    if (result == null) {
+                        return;
+                    }
+                    if (page == 0) {
+                        pageState[1] = result.getTotalMatches();
+                    }
+                    pageState[0] = page;
+                    while (pageCursors.size() > page + 1) {
+                        pageCursors.remove(pageCursors.size() - 1);
+                    }
+                    if (result.hasMore()) {
+                        pageCursors.add(result.getNextCursor());
+                    }
 
-                                // Null checks for safety
-                                String uname = s.getUsername() != null ? s.getUsername().toLowerCase() : "";
-                                String fname = s.getFullName() != null ? s.getFullName().toLowerCase() : "";
+                    for (User s : result.getRows()) {
+                        model.addRow(new Object[] { s.getId(), s.getUsername(), s.getFullName(),
+                                s.getDepartment(), s.getScore(), s.hasSubmitted() ? "YES" : "NO" });
+                    }
 
-                                if (!query.isEmpty() && !uname.contains(query) && !fname.contains(query)) {
-                                    continue;
-                                }
-                                model.addRow(new Object[] { s.getId(), s.getUsername(), s.getFullName(),
-                                        s.getDepartment(), s.getScore(), s.hasSubmitted() ? "YES" : "NO" });
-                            }
-                        }
-                    });
-                } catch (Exception ex) {
-                    ex.printStackTrace();
-                }
+                    int first = page * STUDENTS_PAGE_SIZE;
+                    pageLabel.setText(result.getRows().isEmpty() ? "No matches"
+                            : "Showing " + (first + 1) + "-" + (first + result.getRows().size())
+                                    + (pageState[1] >= 0 ? " of " + pageState[1] : ""));
+                    prevBtn.setEnabled(page > 0);
+                    nextBtn.setEnabled(result.hasMore());
+                });
             }).start();
         };
 
+        // Any filter/sort change starts again from the first page
+        java.awt.event.ActionListener refreshAction = e -> {
+            rankMode[0] = e.getSource() == rankBtn;
+            pageCursors.clear();
+            pageCursors.add(null);
+            loadPage.accept(0);
+        };
+        prevBtn.addActionListener(e -> loadPage.accept(pageState[0] - 1));
+        nextBtn.addActionListener(e -> loadPage.accept(pageState[0] + 1));
+
         refreshBtn.addActionListener(refreshAction);
         searchBtn.addActionListener(refreshAction);
         searchField.addActionListener(refreshAction); // Enable Enter key
@@ -1339,10 +1400,10 @@ public class QuizClient extends JFrame {
     private void loadQuiz(common.Subject subject) {
         cardLayout.show(mainPanel, "LOADING");
         new Thread(() -> {
-            List<Question> questions = executeSafe(() -> service.getQuestions(subject.getId()));
+            List<Question> questions = executeRead(r -> r.getQuestions(subject.getId()));
 
             // Then Get Shuffle Logic (Code Migration)
-            common.ShuffleStrategy shuffler = executeSafe(() -> service.getShuffleStrategy());
+            common.ShuffleStrategy shuffler = executeRead(r -> r.getShuffleStrategy());
 
             if (questions != null) {
                 if (shuffler != null) {
@@ -1436,7 +1497,7 @@ public class QuizClient extends JFrame {
         new Thread(() -> {
             try {
                 // Initial sync safely
-                Long serverTimeObj = executeSafe(() -> service.getServerTime());
+                Long serverTimeObj = executeRead(r -> r.getServerTime());
                 if (serverTimeObj == null)
                     return;
                 long serverTime = serverTimeObj;
@@ -10,7 +10,12 @@ public interface ElectionService extends Remote {
     // Bully Algorithm Messages
     void startElection(int senderId) throws RemoteException;
 
-    void declareCoordinator(int leaderId) throws RemoteException;
+    /**
+     * @param epoch the leader's lease epoch; an announcement older than the
+     *              highest epoch this node has seen is rejected with a
+     *              RemoteException
+     */
+    void declareCoordinator(int leaderId, long epoch) throws RemoteException;
 
     // Get ID of this node
     int getNodeId() throws RemoteException;
@@ -19,4 +24,17 @@ public interface ElectionService extends Remote {
     int getCurrentLeaderId() throws RemoteException;
 
     java.util.List<String> getClusterTopology() throws RemoteException;
+
+    /**
+     * Log shipping from the leader. Records at or below the highest seq already
+     * applied for (senderId, session) are skipped, so retries are safe.
+     *
+     * @param epoch   the sender's lease epoch; batches from a deposed leader are
+     *                refused
+     * @param session identifies one run of the sender; seqs restart per session
+     * @return the highest seq applied for this session (the acknowledgement), or
+     *         -1 if the epoch is stale and nothing was applied
+     */
+    long replicateBatch(int senderId, long epoch, long session, java.util.List<ReplicationRecord> batch)
+            throws RemoteException;
 }
@@ -0,0 +1,70 @@
+package common;
+
+import java.io.Serializable;
+
+/**
+ * Item analysis for one question of an exam.
+ *
+ * Difficulty is the share of submissions that answered correctly (higher means
+ * easier). Discrimination is the point-biserial correlation between getting
+ * this item right and the total score: near 0 or negative flags a question that
+ * strong students miss as often as weak ones.
+ */
+public class ItemStatistic implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private int questionId;
+    private int submissions;
+    private int attempts;
+    private int correct;
+    private int[] optionCounts; // A, B, C, D
+    private double difficulty;
+    private double discrimination;
+
+    public ItemStatistic(int questionId, int submissions, int attempts, int correct, int[] optionCounts,
+            double difficulty, double discrimination) {
+        this.questionId = questionId;
+        this.submissions = submissions;
+        this.attempts = attempts;
+        this.correct = correct;
+        this.optionCounts = optionCounts;
+        this.difficulty = difficulty;
+        this.discrimination = discrimination;
+    }
+
+    public int getQuestionId() {
+        return questionId;
+    }
+
+    public int getSubmissions() {
+        return submissions;
+    }
+
+    /** Submissions that picked any option for this question. */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public int getCorrect() {
+        return correct;
+    }
+
+    public int[] getOptionCounts() {
+        return optionCounts;
+    }
+
+    public double getDifficulty() {
+        return difficulty;
+    }
+
+    public double getDiscrimination() {
+        return discrimination;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Q%d: %d/%d correct, p=%.2f, r=%.2f, A/B/C/D=%d/%d/%d/%d", questionId, correct,
+                submissions, difficulty, discrimination, optionCounts[0], optionCounts[1], optionCounts[2],
+                optionCounts[3]);
+    }
+}
@@ -0,0 +1,50 @@
+package common;
+
+import java.io.Serializable;
+
+/**
+ * A student's standing in one exam. Rank is 1-based and shared by equal scores
+ * (competition ranking: 10, 9, 9, 7 ranks as 1, 2, 2, 4).
+ */
+public class LeaderboardEntry implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private int studentId;
+    private int score;
+    private int rank;
+    private int totalSubmitted;
+    private double percentile; // Share of submitters scoring strictly lower, 0-100
+
+    public LeaderboardEntry(int studentId, int score, int rank, int totalSubmitted, double percentile) {
+        this.studentId = studentId;
+        this.score = score;
+        this.rank = rank;
+        this.totalSubmitted = totalSubmitted;
+        this.percentile = percentile;
+    }
+
+    public int getStudentId() {
+        return studentId;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public int getTotalSubmitted() {
+        return totalSubmitted;
+    }
+
+    public double getPercentile() {
+        return percentile;
+    }
+
+    @Override
+    public String toString() {
+        return "#" + rank + " Student " + studentId + " (" + score + ")";
+    }
+}
@@ -0,0 +1,27 @@
+package common;
+
+import java.rmi.Remote;
+import java.rmi.RemoteException;
+import java.util.List;
+
+/**
+ * The read-only calls a student makes while starting an exam. Every node binds
+ * one under "QuizReadService": backups serve it from the shared database, the
+ * leader binds its QuizService (which extends this interface). Writes always go
+ * to the leader's QuizService.
+ */
+public interface QuizReadService extends Remote {
+        // Updated validity check to include Student ID for strict checking
+        Subject validateSubjectCode(String code, int studentId) throws RemoteException;
+
+        // Questions (Scoped by Subject)
+        List<Question> getQuestions(int subjectId) throws RemoteException;
+
+        long getServerTime() throws RemoteException;
+
+        // Code Migration: Server sends the sorting logic object to client
+        ShuffleStrategy getShuffleStrategy() throws RemoteException;
+
+        // Topology Sync (For Auto-Failover)
+        java.util.List<String> getClusterTopology() throws RemoteException;
+}
@@ -1,18 +1,13 @@
 package common;
 
-import java.rmi.Remote;
 import java.rmi.RemoteException;
 import java.util.List;
 import java.util.Map;
 
-public interface QuizService extends Remote {
+public interface QuizService extends QuizReadService {
         // Auth
         User login(String username, String password) throws RemoteException;
 
-        // Subjects
-        // Updated validity check to include Student ID for strict checking
-        Subject validateSubjectCode(String code, int studentId) throws RemoteException;
-
         // Exam Creator / Admin
         boolean addSubject(String name, String code, java.sql.Timestamp start, java.sql.Timestamp end, int creatorId)
                         throws RemoteException;
@@ -22,9 +17,6 @@ public interface QuizService extends Remote {
         boolean addQuestion(int subjectId, String text, String a, String b, String c, String d, String correct)
                         throws RemoteException;
 
-        // Questions (Scoped by Subject)
-        List<Question> getQuestions(int subjectId) throws RemoteException;
-
         /**
          * Submits answers.
          * 
@@ -34,11 +26,6 @@ public interface QuizService extends Remote {
          */
         int submitMockQuiz(int userId, int subjectId, Map<Integer, String> answers) throws RemoteException;
 
-        long getServerTime() throws RemoteException;
-
-        // Code Migration: Server sends the sorting logic object to client
-        ShuffleStrategy getShuffleStrategy() throws RemoteException;
-
         // Admin/Teacher Feature (Old Log based)
         java.util.List<String> getAllResults() throws RemoteException;
 
@@ -50,9 +37,6 @@ public interface QuizService extends Remote {
         // Distributed Features
         void replicateSubmission(int studentId, int score) throws RemoteException;
 
-        // Topology Sync (For Auto-Failover)
-        java.util.List<String> getClusterTopology() throws RemoteException;
-
         // Subjects
         List<Subject> getAllSubjects() throws RemoteException;
 
@@ -65,10 +49,39 @@ public interface QuizService extends Remote {
 
         int getQuestionCount(int subjectId) throws RemoteException;
 
+        // Dashboard overviews: subjects with getQuestionCount() filled in, one round trip
+        List<Subject> getCreatorExamOverview(int creatorId) throws RemoteException;
+
+        List<Subject> getPendingExamOverview() throws RemoteException;
+
         boolean deleteSubject(int subjectId) throws RemoteException;
 
         List<User> getStudentSubmissionsForExam(int subjectId) throws RemoteException;
 
+        /**
+         * Paged, filtered listing of an exam's students for the admin view.
+         *
+         * @param search        username/full-name prefix, or null
+         * @param submittedOnly skip students without a submission
+         * @param ranked        highest score first instead of id order
+         * @param cursor        null for the first page, else the previous page's
+         *                      next cursor
+         */
+        SubmissionPage getSubmissionPage(int subjectId, String search, boolean submittedOnly, boolean ranked,
+                        int pageSize, String cursor) throws RemoteException;
+
+        // Live leaderboard (served from memory on the leader)
+        List<LeaderboardEntry> getLeaderboard(int subjectId, int topK) throws RemoteException;
+
+        /** @return the student's rank and percentile, or null if they have not submitted */
+        LeaderboardEntry getStudentStanding(int subjectId, int studentId) throws RemoteException;
+
+        /** @return live mean/stddev/quantiles/histogram, or null before the first submission */
+        ScoreStats getScoreStats(int subjectId) throws RemoteException;
+
+        // Per-question difficulty/discrimination for reviewers (ordered by question id)
+        List<ItemStatistic> getItemAnalysis(int subjectId) throws RemoteException;
+
         // New Admin User Management
         boolean addTeacher(String username, String password, String fullName, String department) throws RemoteException;
 
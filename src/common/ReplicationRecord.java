@@ -0,0 +1,57 @@
+package common;
+
+import java.io.Serializable;
+
+/**
+ * One graded submission shipped from the leader to a backup, or an admin reset
+ * of one (isReset(); score is then unused).
+ * 'seq' increases per leader session and lets the backup drop retried duplicates.
+ */
+public class ReplicationRecord implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private long seq;
+    private int studentId;
+    private int subjectId;
+    private int score;
+    private long timestamp;
+    private boolean reset;
+
+    public ReplicationRecord(long seq, int studentId, int subjectId, int score, long timestamp) {
+        this.seq = seq;
+        this.studentId = studentId;
+        this.subjectId = subjectId;
+        this.score = score;
+        this.timestamp = timestamp;
+    }
+
+    public static ReplicationRecord reset(long seq, int studentId, int subjectId, long timestamp) {
+        ReplicationRecord rec = new ReplicationRecord(seq, studentId, subjectId, 0, timestamp);
+        rec.reset = true;
+        return rec;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public int getStudentId() {
+        return studentId;
+    }
+
+    public int getSubjectId() {
+        return subjectId;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    public boolean isReset() {
+        return reset;
+    }
+}
@@ -0,0 +1,88 @@
+package common;
+
+import java.io.Serializable;
+
+/**
+ * Live score statistics for one exam. histogram[s] is the number of students
+ * whose current score is s; quantiles are exact (nearest-rank).
+ */
+public class ScoreStats implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private int subjectId;
+    private int count;
+    private double mean;
+    private double stdDev;
+    private int min;
+    private int max;
+    private int p25;
+    private int median;
+    private int p75;
+    private int p90;
+    private int[] histogram;
+
+    public ScoreStats(int subjectId, int count, double mean, double stdDev, int min, int max, int p25, int median,
+            int p75, int p90, int[] histogram) {
+        this.subjectId = subjectId;
+        this.count = count;
+        this.mean = mean;
+        this.stdDev = stdDev;
+        this.min = min;
+        this.max = max;
+        this.p25 = p25;
+        this.median = median;
+        this.p75 = p75;
+        this.p90 = p90;
+        this.histogram = histogram;
+    }
+
+    public int getSubjectId() {
+        return subjectId;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getStdDev() {
+        return stdDev;
+    }
+
+    public int getMin() {
+        return min;
+    }
+
+    public int getMax() {
+        return max;
+    }
+
+    public int getP25() {
+        return p25;
+    }
+
+    public int getMedian() {
+        return median;
+    }
+
+    public int getP75() {
+        return p75;
+    }
+
+    public int getP90() {
+        return p90;
+    }
+
+    public int[] getHistogram() {
+        return histogram;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("n=%d mean=%.2f sd=%.2f min=%d p25=%d median=%d p75=%d p90=%d max=%d", count, mean,
+                stdDev, min, p25, median, p75, p90, max);
+    }
+}
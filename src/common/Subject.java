@@ -14,6 +14,7 @@ public class Subject implements Serializable {
     private boolean isPublished;
     private String status; // PENDING_REVIEW, APPROVED_FOR_QUESTIONS, QUESTIONS_PENDING, PUBLISHED
     private int createdBy;
+    private int questionCount = -1; // -1 unless loaded by an overview query
 
     public Subject(int id, String name, String accessCode, Timestamp startTime, Timestamp endTime,
             boolean isPublished, String status, int createdBy) {
@@ -71,6 +72,14 @@ public class Subject implements Serializable {
         return createdBy;
     }
 
+    public int getQuestionCount() {
+        return questionCount;
+    }
+
+    public void setQuestionCount(int questionCount) {
+        this.questionCount = questionCount;
+    }
+
     @Override
     public String toString() {
         return name;
@@ -0,0 +1,38 @@
+package common;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * One page of an exam's student/submission listing.
+ * Pass getNextCursor() back to fetch the following page; it is null on the last one.
+ */
+public class SubmissionPage implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private List<User> rows;
+    private int totalMatches; // Only computed for the first page, -1 otherwise
+    private String nextCursor;
+
+    public SubmissionPage(List<User> rows, int totalMatches, String nextCursor) {
+        this.rows = rows;
+        this.totalMatches = totalMatches;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<User> getRows() {
+        return rows;
+    }
+
+    public int getTotalMatches() {
+        return totalMatches;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,75 @@
+package server;
+
+import java.util.Arrays;
+
+/**
+ * Immutable answer key for one subject, kept as two parallel primitive arrays:
+ * question ids sorted ascending and the correct option encoded as a byte
+ * (0=A, 1=B, 2=C, 3=D). A 100-question exam is about 500 bytes.
+ */
+public final class AnswerKey {
+    public static final byte NO_OPTION = -1;
+
+    private final int subjectId;
+    private final int[] questionIds;
+    private final byte[] correct;
+
+    /**
+     * @param questionIds question ids; need not be sorted
+     * @param options     correct option letters, parallel to questionIds
+     */
+    public AnswerKey(int subjectId, int[] questionIds, String[] options) {
+        int n = questionIds.length;
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(questionIds[a], questionIds[b]));
+
+        this.subjectId = subjectId;
+        this.questionIds = new int[n];
+        this.correct = new byte[n];
+        for (int i = 0; i < n; i++) {
+            this.questionIds[i] = questionIds[order[i]];
+            this.correct[i] = encodeOption(options[order[i]]);
+        }
+    }
+
+    public int getSubjectId() {
+        return subjectId;
+    }
+
+    /** Number of questions in the exam. */
+    public int size() {
+        return questionIds.length;
+    }
+
+    /** Dense index (0..size-1) of a question id, or -1 if it is not part of this exam. */
+    public int indexOf(int questionId) {
+        int i = Arrays.binarySearch(questionIds, questionId);
+        return i >= 0 ? i : -1;
+    }
+
+    public int questionIdAt(int index) {
+        return questionIds[index];
+    }
+
+    public byte correctOptionAt(int index) {
+        return correct[index];
+    }
+
+    /** "A".."D" (any case) to 0..3; anything else to NO_OPTION. Never allocates. */
+    public static byte encodeOption(String option) {
+        if (option == null || option.length() != 1) {
+            return NO_OPTION;
+        }
+        char c = option.charAt(0);
+        if (c >= 'a' && c <= 'd') {
+            return (byte) (c - 'a');
+        }
+        if (c >= 'A' && c <= 'D') {
+            return (byte) (c - 'A');
+        }
+        return NO_OPTION;
+    }
+}
@@ -0,0 +1,216 @@
+package server;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Append-only text log written by one background thread.
+ *
+ * Producers add lines to a lock-free queue and return immediately; they never
+ * open, write or sync the file. The appender thread drains whatever has queued
+ * up, encodes it into one reused buffer and writes it with a single
+ * FileChannel.write. Only one thread ever touches the file, which is what keeps
+ * lines from interleaving.
+ *
+ * Settings are read as &lt;prefix&gt;.xxx from config.properties:
+ * fsync (none | batch | interval), fsyncIntervalMs, maxBytes (rotation size),
+ * maxFiles (rotated files kept as name.1 .. name.N) and queueCapacity. When the
+ * queue is full, lines are dropped and counted rather than blocking the caller.
+ */
+public class AsyncFileAppender {
+    private static final int MAX_BATCH = 1024;
+
+    private final String name;
+    private final File file;
+    private final String fsyncPolicy;
+    private final long fsyncIntervalMs;
+    private final long maxBytes;
+    private final int maxFiles;
+    private final int capacity;
+
+    private final ConcurrentLinkedQueue<String> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Thread appender;
+    private volatile boolean running = true;
+    private volatile boolean idle = false;
+
+    private FileChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+    private long lastSync = System.currentTimeMillis();
+    private boolean unsynced = false;
+
+    // Metrics
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong fsyncs = new AtomicLong();
+    private final AtomicLong rotations = new AtomicLong();
+
+    public AsyncFileAppender(String name, String defaultFile, String prefix) throws IOException {
+        this(name, new File(ServerConfig.getString(prefix + ".file", defaultFile)), prefix);
+    }
+
+    /** As above, for a file the caller has already resolved (&lt;prefix&gt;.file is not read). */
+    public AsyncFileAppender(String name, File file, String prefix) throws IOException {
+        this.name = name;
+        this.file = file;
+        this.fsyncPolicy = ServerConfig.getString(prefix + ".fsync", "interval").trim().toLowerCase();
+        this.fsyncIntervalMs = ServerConfig.getLong(prefix + ".fsyncIntervalMs", 1000);
+        this.maxBytes = ServerConfig.getLong(prefix + ".maxBytes", 10L * 1024 * 1024);
+        this.maxFiles = Math.max(1, ServerConfig.getInt(prefix + ".maxFiles", 5));
+        this.capacity = Math.max(1, ServerConfig.getInt(prefix + ".queueCapacity", 100000));
+        this.channel = open();
+
+        appender = new Thread(this::run, name + "-appender");
+        appender.setDaemon(true);
+        appender.start();
+    }
+
+    /** Queues one line (without the newline). Never blocks. */
+    public void append(String line) {
+        if (queued.incrementAndGet() > capacity) {
+            queued.decrementAndGet();
+            dropped.incrementAndGet();
+            return;
+        }
+        queue.offer(line);
+        if (idle) {
+            LockSupport.unpark(appender);
+        }
+    }
+
+    private void run() {
+        while (running || !queue.isEmpty()) {
+            try {
+                int n = drainBatch();
+                if (n == 0) {
+                    maybeSync(false);
+                    idle = true;
+                    if (queue.isEmpty() && running) {
+                        LockSupport.parkNanos(Math.max(1, Math.min(fsyncIntervalMs, 1000)) * 1_000_000L);
+                    }
+                    idle = false;
+                    continue;
+                }
+                maybeSync(true);
+                if (channel.size() >= maxBytes) {
+                    rotate();
+                }
+            } catch (IOException e) {
+                System.err.println("[" + name + "] Write failed: " + e.getMessage());
+                LockSupport.parkNanos(500_000_000L); // Don't spin on a broken disk
+            }
+        }
+        try {
+            maybeSync(true);
+            channel.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private int drainBatch() throws IOException {
+        int n = 0;
+        String line;
+        while (n < MAX_BATCH && (line = queue.poll()) != null) {
+            queued.decrementAndGet();
+            byte[] bytes = (line + "\n").getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > buffer.remaining()) {
+                flushBuffer();
+                if (bytes.length > buffer.capacity()) {
+                    buffer = ByteBuffer.allocateDirect(bytes.length * 2);
+                }
+            }
+            buffer.put(bytes);
+            n++;
+        }
+        if (n > 0) {
+            flushBuffer();
+            written.addAndGet(n);
+            batches.incrementAndGet();
+        }
+        return n;
+    }
+
+    private void flushBuffer() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+        unsynced = true;
+    }
+
+    private void maybeSync(boolean afterBatch) throws IOException {
+        if (!unsynced) {
+            return;
+        }
+        boolean due;
+        switch (fsyncPolicy) {
+            case "batch":
+                due = afterBatch;
+                break;
+            case "interval":
+                due = System.currentTimeMillis() - lastSync >= fsyncIntervalMs;
+                break;
+            default: // "none": leave it to the OS
+                return;
+        }
+        if (due) {
+            channel.force(false);
+            fsyncs.incrementAndGet();
+            lastSync = System.currentTimeMillis();
+            unsynced = false;
+        }
+    }
+
+    /** name -> name.1 -> ... -> name.maxFiles (oldest dropped). */
+    private void rotate() throws IOException {
+        if (!"none".equals(fsyncPolicy)) {
+            channel.force(false);
+        }
+        channel.close();
+        unsynced = false;
+        new File(file.getPath() + "." + maxFiles).delete();
+        for (int i = maxFiles - 1; i >= 1; i--) {
+            File from = new File(file.getPath() + "." + i);
+            if (from.exists()) {
+                from.renameTo(new File(file.getPath() + "." + (i + 1)));
+            }
+        }
+        if (!file.renameTo(new File(file.getPath() + ".1"))) {
+            System.err.println("[" + name + "] Could not rotate " + file + "; continuing in place.");
+        }
+        channel = open();
+        rotations.incrementAndGet();
+    }
+
+    private FileChannel open() throws IOException {
+        return FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    /** Writes whatever is still queued, syncs per the policy and closes the file. */
+    public void shutdown() {
+        running = false;
+        LockSupport.unpark(appender);
+        try {
+            appender.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public String getStats() {
+        return String.format("%s: written=%d queued=%d dropped=%d batches=%d fsyncs=%d rotations=%d (fsync=%s)", name,
+                written.get(), queued.get(), dropped.get(), batches.get(), fsyncs.get(), rotations.get(),
+                fsyncPolicy);
+    }
+}
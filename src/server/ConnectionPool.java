@@ -0,0 +1,230 @@
+package server;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded JDBC connection pool shared by all RMI threads.
+ *
+ * - min/max size: 'min' connections are opened up front, at most 'max' are ever open.
+ * - Validation on borrow: a connection idle for longer than the validation interval is
+ * pinged with isValid() before it is handed out; dead ones are replaced.
+ * - Leak detection: a background task reports connections held past the leak threshold.
+ * - Timing: wait time (borrow) and hold time (borrow -> close) are accumulated per borrow.
+ * - Statement cache: each connection keeps its own LRU of prepared statements
+ * (db.stmtCache.size per connection, 0 disables it); hits/misses are counted here.
+ */
+public class ConnectionPool {
+    private final String url;
+    private final String user;
+    private final String pass;
+    private final int maxSize;
+    private final long borrowTimeoutMs;
+    private final long validationIntervalMs;
+    private final long leakThresholdMs;
+    private final int stmtCacheSize = ServerConfig.getInt("db.stmtCache.size", 64);
+
+    // Most recently returned first, so hot connections stay hot
+    private final LinkedBlockingDeque<PooledConnection> idle = new LinkedBlockingDeque<>();
+    private final Set<PooledConnection> inUse = ConcurrentHashMap.newKeySet();
+    private final Semaphore permits;
+    private final AtomicInteger openCount = new AtomicInteger();
+    private final ScheduledExecutorService leakDetector;
+    private volatile boolean shutdown = false;
+
+    // Metrics
+    private final AtomicLong borrows = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong holdNanos = new AtomicLong();
+    private final AtomicLong maxHoldNanos = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong validationFailures = new AtomicLong();
+    private final AtomicLong leaks = new AtomicLong();
+    private final AtomicLong stmtHits = new AtomicLong();
+    private final AtomicLong stmtMisses = new AtomicLong();
+    private final AtomicLong stmtEvictions = new AtomicLong();
+
+    public ConnectionPool(String url, String user, String pass) throws SQLException {
+        this(url, user, pass,
+                ServerConfig.getInt("db.pool.min", 2),
+                ServerConfig.getInt("db.pool.max", 16),
+                ServerConfig.getLong("db.pool.borrowTimeoutMs", 5000),
+                ServerConfig.getLong("db.pool.validationIntervalMs", 5000),
+                ServerConfig.getLong("db.pool.leakThresholdMs", 30000));
+    }
+
+    public ConnectionPool(String url, String user, String pass, int minSize, int maxSize,
+            long borrowTimeoutMs, long validationIntervalMs, long leakThresholdMs) throws SQLException {
+        if (maxSize < 1 || minSize < 0 || minSize > maxSize) {
+            throw new IllegalArgumentException("Invalid pool size: min=" + minSize + " max=" + maxSize);
+        }
+        this.url = url;
+        this.user = user;
+        this.pass = pass;
+        this.maxSize = maxSize;
+        this.borrowTimeoutMs = borrowTimeoutMs;
+        this.validationIntervalMs = validationIntervalMs;
+        this.leakThresholdMs = leakThresholdMs;
+        this.permits = new Semaphore(maxSize, true);
+
+        for (int i = 0; i < minSize; i++) {
+            idle.offerLast(open());
+        }
+
+        leakDetector = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "db-pool-leak-detector");
+            t.setDaemon(true);
+            return t;
+        });
+        long period = Math.max(1000, leakThresholdMs / 2);
+        leakDetector.scheduleAtFixedRate(this::detectLeaks, period, period, TimeUnit.MILLISECONDS);
+
+        System.out.println("Connection pool ready (min=" + minSize + ", max=" + maxSize + ").");
+    }
+
+    /**
+     * Borrows a connection. Always use it in try-with-resources so close() returns it.
+     */
+    public PooledConnection borrow() throws SQLException {
+        if (shutdown) {
+            throw new SQLException("Connection pool is shut down.");
+        }
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(borrowTimeoutMs, TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                throw new SQLException("Timed out after " + borrowTimeoutMs + "ms waiting for a database connection ("
+                        + inUse.size() + "/" + maxSize + " in use).");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection.");
+        }
+
+        try {
+            PooledConnection pc;
+            while ((pc = idle.pollFirst()) != null) {
+                if (isUsable(pc)) {
+                    break;
+                }
+                validationFailures.incrementAndGet();
+                discard(pc);
+            }
+            if (pc == null) {
+                pc = open();
+            }
+            pc.markBorrowed();
+            inUse.add(pc);
+
+            long waited = System.nanoTime() - start;
+            borrows.incrementAndGet();
+            waitNanos.addAndGet(waited);
+            return pc;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    void release(PooledConnection pc) {
+        if (!inUse.remove(pc)) {
+            return; // Already returned (double close)
+        }
+        long held = System.nanoTime() - pc.getBorrowedAtNanos();
+        holdNanos.addAndGet(held);
+        maxHoldNanos.accumulateAndGet(held, Math::max);
+        if (pc.isLeakReported()) {
+            System.err.println("[DB POOL] Leaked connection returned after " + (held / 1_000_000) + "ms by "
+                    + pc.getBorrowerName());
+        }
+
+        try {
+            if (shutdown || !pc.resetForReuse()) {
+                discard(pc);
+            } else {
+                idle.offerFirst(pc);
+            }
+        } finally {
+            permits.release();
+        }
+    }
+
+    private boolean isUsable(PooledConnection pc) {
+        try {
+            Connection raw = pc.getRaw();
+            if (raw.isClosed()) {
+                return false;
+            }
+            long idleMs = (System.nanoTime() - pc.getLastUsedNanos()) / 1_000_000;
+            return idleMs < validationIntervalMs || raw.isValid(2);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private PooledConnection open() throws SQLException {
+        Connection raw = DriverManager.getConnection(url, user, pass);
+        openCount.incrementAndGet();
+        return new PooledConnection(this, raw, stmtCacheSize);
+    }
+
+    private void discard(PooledConnection pc) {
+        openCount.decrementAndGet();
+        pc.closeQuietly();
+    }
+
+    private void detectLeaks() {
+        long now = System.nanoTime();
+        for (PooledConnection pc : inUse) {
+            long heldMs = (now - pc.getBorrowedAtNanos()) / 1_000_000;
+            if (heldMs > leakThresholdMs && !pc.isLeakReported()) {
+                pc.setLeakReported();
+                leaks.incrementAndGet();
+                System.err.println("[DB POOL] Possible connection leak: held for " + heldMs + "ms by thread '"
+                        + pc.getBorrowerName() + "'");
+            }
+        }
+    }
+
+    void recordStatementHit() {
+        stmtHits.incrementAndGet();
+    }
+
+    void recordStatementMiss() {
+        stmtMisses.incrementAndGet();
+    }
+
+    void recordStatementEviction() {
+        stmtEvictions.incrementAndGet();
+    }
+
+    public void shutdown() {
+        shutdown = true;
+        leakDetector.shutdownNow();
+        PooledConnection pc;
+        while ((pc = idle.pollFirst()) != null) {
+            discard(pc);
+        }
+    }
+
+    public String getStats() {
+        long n = Math.max(1, borrows.get());
+        return String.format(
+                "DB Pool: open=%d/%d active=%d idle=%d borrows=%d avgWait=%.3fms avgHold=%.3fms maxHold=%.1fms "
+                        + "timeouts=%d invalid=%d leaks=%d | StmtCache: hits=%d misses=%d evictions=%d",
+                openCount.get(), maxSize, inUse.size(), idle.size(), borrows.get(),
+                waitNanos.get() / 1e6 / n, holdNanos.get() / 1e6 / n, maxHoldNanos.get() / 1e6,
+                timeouts.get(), validationFailures.get(), leaks.get(),
+                stmtHits.get(), stmtMisses.get(), stmtEvictions.get());
+    }
+}
@@ -65,8 +65,49 @@ public class Diagnostics {
                         + rsTop.getString("full_name") + " | Gen: " + rsTop.getString("gender"));
             }
 
+            printSchemaReport(conn);
+
         } catch (Exception e) {
             e.printStackTrace();
         }
     }
+
+    /**
+     * Schema version, required secondary indexes, and the EXPLAIN plan of each
+     * hot DAO query. type=ALL on a large table means a full scan.
+     */
+    static void printSchemaReport(Connection conn) throws SQLException {
+        System.out.println("\n=== Schema Report ===");
+        try (Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            rs.next();
+            System.out.println("Schema version: " + rs.getInt(1) + " (code expects " + DatabaseManager.SCHEMA_VERSION
+                    + ")");
+        } catch (SQLException e) {
+            System.out.println("Schema version: UNKNOWN (" + e.getMessage() + ")");
+        }
+
+        System.out.println("Required indexes:");
+        for (String[] idx : DatabaseManager.REQUIRED_INDEXES) {
+            boolean ok = DatabaseManager.hasIndexOn(conn, idx[1], idx[3]);
+            System.out.println(" - " + (ok ? "OK     " : "MISSING") + " " + idx[1] + " (" + idx[3] + ")  [v" + idx[0]
+                    + "]");
+        }
+
+        System.out.println("Query plans:");
+        for (String[] q : DatabaseManager.HOT_QUERIES) {
+            System.out.println(" * " + q[0] + ": " + q[1]);
+            try (Statement stmt = conn.createStatement();
+                    ResultSet rs = stmt.executeQuery("EXPLAIN " + q[1])) {
+                while (rs.next()) {
+                    String type = rs.getString("type");
+                    System.out.println("     table=" + rs.getString("table") + " type=" + type + " key="
+                            + rs.getString("key") + " rows=" + rs.getString("rows") + " extra="
+                            + rs.getString("Extra") + ("ALL".equals(type) ? "   <-- FULL SCAN" : ""));
+                }
+            } catch (SQLException e) {
+                System.out.println("     EXPLAIN failed: " + e.getMessage());
+            }
+        }
+    }
 }
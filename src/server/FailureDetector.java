@@ -0,0 +1,160 @@
+package server;
+
+/**
+ * Decides when the leader should be considered dead, from the arrival times of
+ * successful heartbeats. A failed ping is not a verdict by itself; suspicion
+ * is a function of how long it has been since the last heartbeat arrived.
+ *
+ * failover.detector selects the implementation:
+ * missed  suspect after failover.missedBeats intervals without a heartbeat
+ * phi     phi-accrual (Hayashibara et al.): suspect when phi exceeds
+ *         failover.phiThreshold, using the observed mean and deviation of the
+ *         heartbeat inter-arrival times, so jittery links get more slack
+ */
+public interface FailureDetector {
+
+    /** Records a heartbeat that arrived at 'nowMs'. */
+    void heartbeat(long nowMs);
+
+    boolean isSuspect(long nowMs);
+
+    /** Forgets history (new leader); the next heartbeat starts a fresh window. */
+    void reset(long nowMs);
+
+    /** Milliseconds since the last heartbeat. */
+    long sinceLastHeartbeat(long nowMs);
+
+    String describe(long nowMs);
+
+    static FailureDetector create(long intervalMs) {
+        String kind = ServerConfig.getString("failover.detector", "phi").toLowerCase();
+        if ("missed".equals(kind)) {
+            return new MissedBeats(intervalMs, Math.max(1, ServerConfig.getInt("failover.missedBeats", 3)));
+        }
+        double threshold = ServerConfig.getDouble("failover.phiThreshold", 8);
+        long minStdDev = ServerConfig.getLong("failover.phiMinStdDevMs", Math.max(10, intervalMs / 5));
+        long pause = ServerConfig.getLong("failover.acceptablePauseMs", intervalMs / 2);
+        return new PhiAccrual(intervalMs, threshold, minStdDev, pause,
+                Math.max(2, ServerConfig.getInt("failover.phiWindow", 100)));
+    }
+
+    /** Fixed timeout: N heartbeat intervals without an arrival. */
+    final class MissedBeats implements FailureDetector {
+        private final long timeoutMs;
+        private volatile long last;
+
+        MissedBeats(long intervalMs, int beats) {
+            this.timeoutMs = intervalMs * beats;
+            this.last = System.currentTimeMillis();
+        }
+
+        @Override
+        public void heartbeat(long nowMs) {
+            last = nowMs;
+        }
+
+        @Override
+        public boolean isSuspect(long nowMs) {
+            return nowMs - last > timeoutMs;
+        }
+
+        @Override
+        public void reset(long nowMs) {
+            last = nowMs;
+        }
+
+        @Override
+        public long sinceLastHeartbeat(long nowMs) {
+            return nowMs - last;
+        }
+
+        @Override
+        public String describe(long nowMs) {
+            return "missed-beats timeout=" + timeoutMs + "ms silent=" + sinceLastHeartbeat(nowMs) + "ms";
+        }
+    }
+
+    /** Phi-accrual over a sliding window of inter-arrival times. */
+    final class PhiAccrual implements FailureDetector {
+        private final double threshold;
+        private final double minStdDev;
+        private final long acceptablePause;
+        private final long firstInterval;
+        private final long[] window;
+        private int count;
+        private int next;
+        private double sum;
+        private double sumSquares;
+        private long last;
+
+        PhiAccrual(long intervalMs, double threshold, long minStdDevMs, long acceptablePauseMs, int windowSize) {
+            this.threshold = threshold;
+            this.minStdDev = minStdDevMs;
+            this.acceptablePause = acceptablePauseMs;
+            this.firstInterval = intervalMs;
+            this.window = new long[windowSize];
+            reset(System.currentTimeMillis());
+        }
+
+        @Override
+        public synchronized void heartbeat(long nowMs) {
+            add(nowMs - last);
+            last = nowMs;
+        }
+
+        private void add(long interval) {
+            if (count == window.length) {
+                long old = window[next];
+                sum -= old;
+                sumSquares -= (double) old * old;
+            } else {
+                count++;
+            }
+            window[next] = interval;
+            next = (next + 1) % window.length;
+            sum += interval;
+            sumSquares += (double) interval * interval;
+        }
+
+        @Override
+        public synchronized void reset(long nowMs) {
+            count = 0;
+            next = 0;
+            sum = 0;
+            sumSquares = 0;
+            last = nowMs;
+            // Seed with the configured interval so the first verdicts are sane
+            add(firstInterval);
+        }
+
+        @Override
+        public boolean isSuspect(long nowMs) {
+            return phi(nowMs) > threshold;
+        }
+
+        public synchronized double phi(long nowMs) {
+            double mean = sum / count + acceptablePause;
+            double variance = sumSquares / count - (sum / count) * (sum / count);
+            double stdDev = Math.max(minStdDev, Math.sqrt(Math.max(0, variance)));
+            double y = ((nowMs - last) - mean) / stdDev;
+            // Logistic approximation of the normal CDF tail
+            double e = Math.exp(-y * (1.5976 + 0.070566 * y * y));
+            double p = y > 0 ? e / (1.0 + e) : 1.0 - 1.0 / (1.0 + e);
+            return p <= 0 ? Double.MAX_VALUE : Math.max(0, -Math.log10(p));
+        }
+
+        @Override
+        public synchronized long sinceLastHeartbeat(long nowMs) {
+            return nowMs - last;
+        }
+
+        @Override
+        public synchronized String describe(long nowMs) {
+            double stdDev = Math.sqrt(Math.max(0, sumSquares / count - (sum / count) * (sum / count)));
+            double phi = phi(nowMs);
+            return String.format("phi-accrual phi=%s threshold=%.1f mean=%.0fms stddev=%.0fms silent=%dms",
+                    phi == Double.MAX_VALUE ? "inf" : String.format("%.2f", phi), threshold, sum / count, stdDev,
+                    nowMs - last);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package server;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Grades submissions against an {@link AnswerKey} using primitive arrays only.
+ *
+ * A submission is first encoded into a dense response array: slot i holds the
+ * option (0-3) the student picked for the key's i-th question, or
+ * AnswerKey.NO_OPTION. Scoring is then a straight byte comparison loop.
+ *
+ * The response array is a per-thread scratch buffer that is reused by the next
+ * call on the same RMI thread, so steady-state grading allocates nothing. The
+ * only garbage is the entry iterator of the incoming Map, which RMI has already
+ * deserialized anyway.
+ */
+public class GradingEngine {
+    private final ThreadLocal<byte[]> scratch = ThreadLocal.withInitial(() -> new byte[64]);
+
+    /** Convenience for callers that only need the score. */
+    public int grade(AnswerKey key, Map<Integer, String> answers) {
+        return score(key, encode(key, answers));
+    }
+
+    /**
+     * Adapts the wire format (QuestionID -> "A".."D") to a dense response array.
+     * Answers for questions outside the key are ignored.
+     *
+     * @return the calling thread's scratch buffer; only the first key.size()
+     *         slots are meaningful and it is overwritten by the next call
+     */
+    public byte[] encode(AnswerKey key, Map<Integer, String> answers) {
+        int n = key.size();
+        byte[] responses = scratch.get();
+        if (responses.length < n) {
+            responses = new byte[Math.max(n, responses.length * 2)];
+            scratch.set(responses);
+        }
+        Arrays.fill(responses, 0, n, AnswerKey.NO_OPTION);
+
+        for (Map.Entry<Integer, String> entry : answers.entrySet()) {
+            Integer questionId = entry.getKey();
+            if (questionId == null) {
+                continue;
+            }
+            int idx = key.indexOf(questionId);
+            if (idx >= 0) {
+                responses[idx] = AnswerKey.encodeOption(entry.getValue());
+            }
+        }
+        return responses;
+    }
+
+    public int score(AnswerKey key, byte[] responses) {
+        int score = 0;
+        for (int i = 0, n = key.size(); i < n; i++) {
+            byte chosen = responses[i];
+            if (chosen != AnswerKey.NO_OPTION && chosen == key.correctOptionAt(i)) {
+                score++;
+            }
+        }
+        return score;
+    }
+}
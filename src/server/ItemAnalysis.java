@@ -0,0 +1,428 @@
+package server;
+
+import common.ItemStatistic;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Per-question item analysis, accumulated while grading.
+ *
+ * GradingEngine already produces a dense response array per submission; this
+ * folds it into primitive counters per subject (attempts, correct, picks per
+ * option, and the total score of students who got each item right). From those,
+ * difficulty and point-biserial discrimination come out without scanning
+ * submissions after the exam.
+ *
+ * Counters are flushed to item_statistics every analysis.flushIntervalMs and
+ * reloaded when the node becomes leader. Anything counted since the last flush
+ * is lost if the node dies; these are statistics, not records.
+ *
+ * Only a node holding the leader lease flushes: after a step-down its
+ * counters are stale and would overwrite the new leader's.
+ *
+ * Each student's last responses are kept while this node leads, so a resubmit
+ * replaces the earlier submission's counts and a reset takes them out again.
+ * Submissions counted before a takeover can no longer be taken out. Updates
+ * made while warm() is loading are buffered and replayed onto the restored
+ * counters, as in SubmissionIndex.
+ */
+public class ItemAnalysis {
+    private final DatabaseManager db;
+    private final BooleanSupplier holdsLease;
+    private volatile ConcurrentHashMap<Integer, Items> bySubject = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+    private final Object writeLock = new Object();
+    // Updates made while warm() runs; null otherwise
+    private List<Update> pending;
+
+    public ItemAnalysis(DatabaseManager db, BooleanSupplier holdsLease) {
+        this.db = db;
+        this.holdsLease = holdsLease;
+        if (db.isMockMode()) {
+            this.flusher = null;
+            return;
+        }
+        long interval = Math.max(1000, ServerConfig.getLong("analysis.flushIntervalMs", 30000));
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "item-analysis-flush");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Folds one persisted submission in, replacing the student's previous one if
+     * it was counted here. 'responses' is GradingEngine's scratch array, so this
+     * must run on the grading thread before the next encode().
+     */
+    public void record(AnswerKey key, int studentId, byte[] responses, int score) {
+        synchronized (writeLock) {
+            bySubject.computeIfAbsent(key.getSubjectId(), k -> new Items(key)).record(key, studentId, responses,
+                    score);
+            if (pending != null) {
+                pending.add(new Update(key.getSubjectId(), studentId, key,
+                        Arrays.copyOf(responses, key.size()), score));
+            }
+        }
+    }
+
+    /** Takes a reset submission back out, if it was counted by this node. */
+    public void remove(int subjectId, int studentId) {
+        synchronized (writeLock) {
+            Items items = bySubject.get(subjectId);
+            if (items != null) {
+                items.remove(studentId);
+            }
+            if (pending != null) {
+                pending.add(new Update(subjectId, studentId, null, null, 0));
+            }
+        }
+    }
+
+    public void removeSubject(int subjectId) {
+        synchronized (writeLock) {
+            bySubject.remove(subjectId); // Persisted rows go with the subject (ON DELETE CASCADE)
+            if (pending != null) {
+                pending.add(new Update(subjectId, -1, null, null, 0));
+            }
+        }
+    }
+
+    public List<ItemStatistic> getStatistics(int subjectId) {
+        Items items = bySubject.get(subjectId);
+        return items == null ? new ArrayList<>() : items.toStatistics();
+    }
+
+    /** Reloads persisted counters (called on leader takeover, before serving). */
+    public synchronized void warm() {
+        if (db.isMockMode()) {
+            return;
+        }
+        synchronized (writeLock) {
+            pending = new ArrayList<>();
+        }
+        ConcurrentHashMap<Integer, Items> fresh = new ConcurrentHashMap<>();
+        try (PooledConnection conn = db.borrowConnection()) {
+            Map<Integer, List<int[]>> rows = new HashMap<>();
+            Map<Integer, List<Long>> rowSums = new HashMap<>();
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT subject_id, question_id, attempts, correct_count, count_a, count_b, count_c, count_d, " +
+                            "sum_score_correct FROM item_statistics ORDER BY subject_id, question_id");
+                    ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    int subjectId = rs.getInt(1);
+                    rows.computeIfAbsent(subjectId, k -> new ArrayList<>()).add(new int[] { rs.getInt(2),
+                            rs.getInt(3), rs.getInt(4), rs.getInt(5), rs.getInt(6), rs.getInt(7), rs.getInt(8) });
+                    rowSums.computeIfAbsent(subjectId, k -> new ArrayList<>()).add(rs.getLong(9));
+                }
+            }
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "SELECT subject_id, submissions, sum_score, sum_score_sq FROM item_statistics_subjects");
+                    ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    List<int[]> items = rows.get(rs.getInt(1));
+                    if (items != null) {
+                        fresh.put(rs.getInt(1), Items.restore(items, rowSums.get(rs.getInt(1)), rs.getInt(2),
+                                rs.getLong(3), rs.getLong(4)));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            synchronized (writeLock) {
+                pending = null;
+            }
+            System.err.println("Item analysis not restored: " + e.getMessage());
+            return;
+        }
+        int replayed;
+        synchronized (writeLock) {
+            replayed = pending.size();
+            for (Update u : pending) {
+                if (u.key != null) {
+                    fresh.computeIfAbsent(u.subjectId, k -> new Items(u.key)).record(u.key, u.studentId,
+                            u.responses, u.score);
+                } else if (u.studentId >= 0) {
+                    Items items = fresh.get(u.subjectId);
+                    if (items != null) {
+                        items.remove(u.studentId);
+                    }
+                } else {
+                    fresh.remove(u.subjectId);
+                }
+            }
+            pending = null;
+            bySubject = fresh;
+        }
+        System.out.println("Item analysis restored for " + fresh.size() + " subjects (" + replayed
+                + " concurrent updates replayed).");
+    }
+
+    /** Writes every subject that changed since the last flush; a no-op unless this node holds the lease. */
+    public void flush() {
+        if (!holdsLease.getAsBoolean()) {
+            return;
+        }
+        for (Map.Entry<Integer, Items> e : bySubject.entrySet()) {
+            Items snapshot = e.getValue().snapshotIfDirty();
+            if (snapshot == null) {
+                continue;
+            }
+            try {
+                save(e.getKey(), snapshot);
+            } catch (SQLException ex) {
+                e.getValue().markDirty(); // Retry next round
+                System.err.println("Item analysis flush failed for Subject " + e.getKey() + ": " + ex.getMessage());
+            }
+        }
+    }
+
+    private void save(int subjectId, Items s) throws SQLException {
+        try (PooledConnection conn = db.borrowConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "INSERT INTO item_statistics_subjects (subject_id, submissions, sum_score, sum_score_sq) " +
+                                "VALUES (?, ?, ?, ?) ON DUPLICATE KEY UPDATE submissions = VALUES(submissions), " +
+                                "sum_score = VALUES(sum_score), sum_score_sq = VALUES(sum_score_sq)")) {
+                    ps.setInt(1, subjectId);
+                    ps.setInt(2, s.submissions);
+                    ps.setLong(3, s.sumScore);
+                    ps.setLong(4, s.sumScoreSq);
+                    ps.executeUpdate();
+                }
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "INSERT INTO item_statistics (subject_id, question_id, attempts, correct_count, count_a, " +
+                                "count_b, count_c, count_d, sum_score_correct) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+                                "ON DUPLICATE KEY UPDATE attempts = VALUES(attempts), " +
+                                "correct_count = VALUES(correct_count), count_a = VALUES(count_a), " +
+                                "count_b = VALUES(count_b), count_c = VALUES(count_c), count_d = VALUES(count_d), " +
+                                "sum_score_correct = VALUES(sum_score_correct)")) {
+                    for (int i = 0; i < s.questionIds.length; i++) {
+                        ps.setInt(1, subjectId);
+                        ps.setInt(2, s.questionIds[i]);
+                        ps.setInt(3, s.attempts[i]);
+                        ps.setInt(4, s.correct[i]);
+                        for (int o = 0; o < 4; o++) {
+                            ps.setInt(5 + o, s.options[i * 4 + o]);
+                        }
+                        ps.setLong(9, s.sumScoreCorrect[i]);
+                        ps.addBatch();
+                    }
+                    ps.executeBatch();
+                }
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+
+    public void shutdown() {
+        if (flusher != null) {
+            flusher.shutdown();
+            flush();
+        }
+    }
+
+    /** A record (key set), reset (studentId set) or subject removal buffered during warm(). */
+    private static final class Update {
+        final int subjectId;
+        final int studentId;
+        final AnswerKey key;
+        final byte[] responses;
+        final int score;
+
+        Update(int subjectId, int studentId, AnswerKey key, byte[] responses, int score) {
+            this.subjectId = subjectId;
+            this.studentId = studentId;
+            this.key = key;
+            this.responses = responses;
+            this.score = score;
+        }
+    }
+
+    /** Counters for one subject; index i is the key's i-th question (ids ascending). */
+    static final class Items {
+        int[] questionIds;
+        int submissions;
+        long sumScore;
+        long sumScoreSq;
+        int[] attempts;
+        int[] correct;
+        int[] options; // 4 per question
+        long[] sumScoreCorrect;
+        private AnswerKey lastKey;
+        private boolean dirty;
+        // studentId -> what was counted for them (not persisted)
+        private final Map<Integer, Taken> byStudent = new HashMap<>();
+
+        private static final class Taken {
+            final AnswerKey key;
+            final byte[] responses;
+            final int score;
+
+            Taken(AnswerKey key, byte[] responses, int score) {
+                this.key = key;
+                this.responses = responses;
+                this.score = score;
+            }
+        }
+
+        Items(AnswerKey key) {
+            reset(key);
+        }
+
+        private Items() {
+        }
+
+        private void reset(AnswerKey key) {
+            int n = key.size();
+            questionIds = new int[n];
+            for (int i = 0; i < n; i++) {
+                questionIds[i] = key.questionIdAt(i);
+            }
+            submissions = 0;
+            sumScore = 0;
+            sumScoreSq = 0;
+            attempts = new int[n];
+            correct = new int[n];
+            options = new int[n * 4];
+            sumScoreCorrect = new long[n];
+            byStudent.clear();
+            lastKey = key;
+        }
+
+        synchronized void record(AnswerKey key, int studentId, byte[] responses, int score) {
+            if (key != lastKey) {
+                if (!sameQuestions(key)) {
+                    // Questions changed (draft edited after trial runs); old counters no longer line up
+                    reset(key);
+                }
+                lastKey = key;
+            }
+            Taken previous = byStudent.remove(studentId);
+            if (previous != null) {
+                apply(previous.key, previous.responses, previous.score, -1);
+            }
+            byte[] copy = Arrays.copyOf(responses, questionIds.length);
+            byStudent.put(studentId, new Taken(key, copy, score));
+            apply(key, copy, score, 1);
+        }
+
+        synchronized void remove(int studentId) {
+            Taken previous = byStudent.remove(studentId);
+            if (previous != null) {
+                apply(previous.key, previous.responses, previous.score, -1);
+            }
+        }
+
+        /** Adds (sign 1) or subtracts (sign -1) one submission. */
+        private void apply(AnswerKey key, byte[] responses, int score, int sign) {
+            submissions += sign;
+            sumScore += sign * score;
+            sumScoreSq += sign * (long) score * score;
+            for (int i = 0; i < questionIds.length; i++) {
+                byte chosen = responses[i];
+                if (chosen == AnswerKey.NO_OPTION) {
+                    continue;
+                }
+                attempts[i] += sign;
+                options[i * 4 + chosen] += sign;
+                if (chosen == key.correctOptionAt(i)) {
+                    correct[i] += sign;
+                    sumScoreCorrect[i] += sign * score;
+                }
+            }
+            dirty = true;
+        }
+
+        private boolean sameQuestions(AnswerKey key) {
+            if (key.size() != questionIds.length) {
+                return false;
+            }
+            for (int i = 0; i < questionIds.length; i++) {
+                if (key.questionIdAt(i) != questionIds[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        synchronized void markDirty() {
+            dirty = true;
+        }
+
+        synchronized Items snapshotIfDirty() {
+            if (!dirty) {
+                return null;
+            }
+            dirty = false;
+            Items s = new Items();
+            s.questionIds = questionIds.clone();
+            s.submissions = submissions;
+            s.sumScore = sumScore;
+            s.sumScoreSq = sumScoreSq;
+            s.attempts = attempts.clone();
+            s.correct = correct.clone();
+            s.options = options.clone();
+            s.sumScoreCorrect = sumScoreCorrect.clone();
+            return s;
+        }
+
+        synchronized List<ItemStatistic> toStatistics() {
+            List<ItemStatistic> out = new ArrayList<>(questionIds.length);
+            int n = submissions;
+            double mean = n == 0 ? 0 : (double) sumScore / n;
+            double sd = n == 0 ? 0 : Math.sqrt(Math.max(0, (double) sumScoreSq / n - mean * mean));
+            for (int i = 0; i < questionIds.length; i++) {
+                double p = n == 0 ? 0 : (double) correct[i] / n;
+                double r = 0;
+                if (sd > 0 && correct[i] > 0 && correct[i] < n) {
+                    // Point-biserial: (mean score if right - mean score if not) / sd * sqrt(p * q)
+                    double m1 = (double) sumScoreCorrect[i] / correct[i];
+                    double m0 = (double) (sumScore - sumScoreCorrect[i]) / (n - correct[i]);
+                    r = (m1 - m0) / sd * Math.sqrt(p * (1 - p));
+                }
+                out.add(new ItemStatistic(questionIds[i], n, attempts[i], correct[i],
+                        Arrays.copyOfRange(options, i * 4, i * 4 + 4), p, r));
+            }
+            return out;
+        }
+
+        /** Rebuilds counters from persisted rows ({qid, attempts, correct, a, b, c, d}, ids ascending). */
+        static Items restore(List<int[]> rows, List<Long> rowSums, int submissions, long sumScore, long sumScoreSq) {
+            Items s = new Items();
+            int n = rows.size();
+            s.questionIds = new int[n];
+            s.attempts = new int[n];
+            s.correct = new int[n];
+            s.options = new int[n * 4];
+            s.sumScoreCorrect = new long[n];
+            for (int i = 0; i < n; i++) {
+                int[] row = rows.get(i);
+                s.questionIds[i] = row[0];
+                s.attempts[i] = row[1];
+                s.correct[i] = row[2];
+                System.arraycopy(row, 3, s.options, i * 4, 4);
+                s.sumScoreCorrect[i] = rowSums.get(i);
+            }
+            s.submissions = submissions;
+            s.sumScore = sumScore;
+            s.sumScoreSq = sumScoreSq;
+            return s;
+        }
+    }
+}
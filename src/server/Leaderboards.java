@@ -0,0 +1,280 @@
+package server;
+
+import common.LeaderboardEntry;
+import common.ScoreStats;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Live per-exam leaderboards, kept in memory and updated on every graded
+ * submission and reset.
+ *
+ * Scores are bounded by the exam's question count, so each board is an array
+ * of score buckets: a Fenwick tree over bucket sizes answers "how many scored
+ * higher" in O(log maxScore), and a bitset of student ids per bucket serves
+ * top-K in score order. The bucket sizes double as an exact score histogram,
+ * and running sums give mean and standard deviation, so live statistics also
+ * cost O(maxScore) per refresh regardless of how many students submitted.
+ * Nothing here touches the database after warm().
+ *
+ * Writes are serialized on 'writeLock' and, while warm() is querying, buffered
+ * and replayed onto the loaded boards before they replace the live map (as in
+ * SubmissionIndex), so a submission graded during the rebuild is not lost.
+ */
+public class Leaderboards {
+    private static final int OP_RECORD = 0;
+    private static final int OP_REMOVE = 1;
+    private static final int OP_REMOVE_SUBJECT = 2;
+
+    private volatile ConcurrentHashMap<Integer, Board> boards = new ConcurrentHashMap<>();
+    private final Object writeLock = new Object();
+    // { op, subjectId, studentId, score } written while warm() runs; null otherwise
+    private List<int[]> pending;
+
+    /** Rebuilds every board from student_submissions (called on leader takeover). */
+    public synchronized void warm(DatabaseManager db) {
+        if (db.isMockMode()) {
+            return;
+        }
+        synchronized (writeLock) {
+            pending = new ArrayList<>();
+        }
+        ConcurrentHashMap<Integer, Board> fresh = new ConcurrentHashMap<>();
+        try (PooledConnection conn = db.borrowConnection();
+                Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT subject_id, student_id, score FROM student_submissions")) {
+            while (rs.next()) {
+                fresh.computeIfAbsent(rs.getInt(1), k -> new Board()).record(rs.getInt(2), rs.getInt(3));
+            }
+        } catch (SQLException e) {
+            synchronized (writeLock) {
+                pending = null;
+            }
+            System.err.println("Leaderboards not warmed: " + e.getMessage());
+            return;
+        }
+        int replayed;
+        synchronized (writeLock) {
+            replayed = pending.size();
+            for (int[] op : pending) {
+                apply(fresh, op[0], op[1], op[2], op[3]);
+            }
+            pending = null;
+            boards = fresh;
+        }
+        System.out.println("Leaderboards warmed for " + fresh.size() + " subjects (" + replayed
+                + " concurrent updates replayed).");
+    }
+
+    public void record(int subjectId, int studentId, int score) {
+        write(OP_RECORD, subjectId, studentId, score);
+    }
+
+    public void remove(int subjectId, int studentId) {
+        write(OP_REMOVE, subjectId, studentId, 0);
+    }
+
+    public void removeSubject(int subjectId) {
+        write(OP_REMOVE_SUBJECT, subjectId, 0, 0);
+    }
+
+    private void write(int op, int subjectId, int studentId, int score) {
+        synchronized (writeLock) {
+            apply(boards, op, subjectId, studentId, score);
+            if (pending != null) {
+                pending.add(new int[] { op, subjectId, studentId, score });
+            }
+        }
+    }
+
+    private static void apply(ConcurrentHashMap<Integer, Board> map, int op, int subjectId, int studentId,
+            int score) {
+        if (op == OP_RECORD) {
+            map.computeIfAbsent(subjectId, k -> new Board()).record(studentId, score);
+        } else if (op == OP_REMOVE) {
+            Board b = map.get(subjectId);
+            if (b != null) {
+                b.remove(studentId);
+            }
+        } else {
+            map.remove(subjectId);
+        }
+    }
+
+    public List<LeaderboardEntry> top(int subjectId, int k) {
+        Board b = boards.get(subjectId);
+        return b == null ? new ArrayList<>() : b.top(k);
+    }
+
+    /** @return null if nobody has submitted this exam yet */
+    public ScoreStats stats(int subjectId) {
+        Board b = boards.get(subjectId);
+        return b == null ? null : b.stats(subjectId);
+    }
+
+    /** @return null if the student has no submission for this exam */
+    public LeaderboardEntry standing(int subjectId, int studentId) {
+        Board b = boards.get(subjectId);
+        return b == null ? null : b.standing(studentId);
+    }
+
+    static final class Board {
+        private final Map<Integer, Integer> scoreByStudent = new HashMap<>();
+        private BitSet[] studentsByScore = new BitSet[0];
+        private int[] counts = new int[0]; // Bucket sizes, so no bitset is ever counted
+        private int[] tree = new int[1]; // Fenwick tree over counts, 1-based
+        private int maxScore = -1;
+        private long sum;
+        private long sumSquares;
+
+        synchronized void record(int studentId, int score) {
+            if (score < 0 || studentId < 0) {
+                return;
+            }
+            Integer old = scoreByStudent.put(studentId, score);
+            if (old != null) {
+                if (old == score) {
+                    return;
+                }
+                studentsByScore[old].clear(studentId);
+                add(old, -1);
+                unaccount(old);
+            }
+            ensureCapacity(score);
+            if (studentsByScore[score] == null) {
+                studentsByScore[score] = new BitSet();
+            }
+            studentsByScore[score].set(studentId);
+            add(score, 1);
+            sum += score;
+            sumSquares += (long) score * score;
+            maxScore = Math.max(maxScore, score);
+        }
+
+        synchronized void remove(int studentId) {
+            Integer old = scoreByStudent.remove(studentId);
+            if (old != null) {
+                studentsByScore[old].clear(studentId);
+                add(old, -1);
+                unaccount(old);
+            }
+        }
+
+        private void unaccount(int score) {
+            sum -= score;
+            sumSquares -= (long) score * score;
+        }
+
+        synchronized ScoreStats stats(int subjectId) {
+            int n = scoreByStudent.size();
+            if (n == 0) {
+                return null;
+            }
+            int[] histogram = Arrays.copyOf(counts, maxScore + 1);
+            int min = -1;
+            int max = 0;
+            for (int s = 0; s <= maxScore; s++) {
+                if (histogram[s] > 0) {
+                    if (min < 0) {
+                        min = s;
+                    }
+                    max = s;
+                }
+            }
+            double mean = (double) sum / n;
+            double variance = Math.max(0, (double) sumSquares / n - mean * mean);
+            return new ScoreStats(subjectId, n, mean, Math.sqrt(variance), min, max,
+                    quantile(histogram, n, 0.25), quantile(histogram, n, 0.5), quantile(histogram, n, 0.75),
+                    quantile(histogram, n, 0.9), Arrays.copyOf(histogram, max + 1));
+        }
+
+        /** Nearest-rank quantile read off the histogram. */
+        private static int quantile(int[] histogram, int n, double q) {
+            long target = Math.max(1, (long) Math.ceil(q * n));
+            long seen = 0;
+            for (int s = 0; s < histogram.length; s++) {
+                seen += histogram[s];
+                if (seen >= target) {
+                    return s;
+                }
+            }
+            return histogram.length - 1;
+        }
+
+        synchronized List<LeaderboardEntry> top(int k) {
+            List<LeaderboardEntry> out = new ArrayList<>(Math.max(0, Math.min(k, scoreByStudent.size())));
+            int total = scoreByStudent.size();
+            int higher = 0;
+            for (int s = maxScore; s >= 0 && out.size() < k; s--) {
+                int bucket = counts[s];
+                if (bucket == 0) {
+                    continue;
+                }
+                BitSet ids = studentsByScore[s];
+                int rank = higher + 1;
+                for (int id = ids.nextSetBit(0); id >= 0 && out.size() < k; id = ids.nextSetBit(id + 1)) {
+                    out.add(new LeaderboardEntry(id, s, rank, total, percentile(total - higher - bucket, total)));
+                }
+                higher += bucket;
+            }
+            return out;
+        }
+
+        synchronized LeaderboardEntry standing(int studentId) {
+            Integer score = scoreByStudent.get(studentId);
+            if (score == null) {
+                return null;
+            }
+            int total = scoreByStudent.size();
+            int atOrBelow = prefixSum(score);
+            int below = atOrBelow - counts[score];
+            return new LeaderboardEntry(studentId, score, total - atOrBelow + 1, total, percentile(below, total));
+        }
+
+        private static double percentile(int below, int total) {
+            return total == 0 ? 0 : 100.0 * below / total;
+        }
+
+        private void ensureCapacity(int score) {
+            if (score < studentsByScore.length) {
+                return;
+            }
+            int n = Math.max(score + 1, studentsByScore.length * 2);
+            studentsByScore = Arrays.copyOf(studentsByScore, n);
+            counts = Arrays.copyOf(counts, n);
+            // Rebuild the Fenwick tree at the new size from the bucket sizes, in O(n)
+            tree = new int[n + 1];
+            for (int i = 1; i <= n; i++) {
+                tree[i] += counts[i - 1];
+                int parent = i + (i & -i);
+                if (parent <= n) {
+                    tree[parent] += tree[i];
+                }
+            }
+        }
+
+        private void add(int score, int delta) {
+            counts[score] += delta;
+            for (int i = score + 1; i < tree.length; i += i & -i) {
+                tree[i] += delta;
+            }
+        }
+
+        /** Number of submissions scoring 0..score inclusive. */
+        private int prefixSum(int score) {
+            int sum = 0;
+            for (int i = Math.min(score + 1, tree.length - 1); i > 0; i -= i & -i) {
+                sum += tree[i];
+            }
+            return sum;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package server;
+
+import common.ElectionService;
+import java.rmi.NoSuchObjectException;
+import java.rmi.NotBoundException;
+import java.rmi.RemoteException;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/**
+ * Resolved RMI stubs for the other nodes of the cluster.
+ *
+ * A stub is looked up once and reused until a call on it fails, so heartbeats,
+ * election messages and replication no longer pay a registry round trip per
+ * message. A peer that restarted leaves us holding a stub for an object that no
+ * longer exists (NoSuchObjectException); that case counts as a failure, drops
+ * the stub and RTT, and is re-resolved and retried once. Every successful call
+ * updates the peer's round-trip time (EWMA).
+ */
+public class PeerDirectory {
+
+    /** A remote call against one peer's ElectionService. */
+    public interface ElectionCall<T> {
+        T call(ElectionService node) throws RemoteException;
+    }
+
+    private final IntFunction<String> addressOf;
+    private final Map<Integer, Peer> peers = new ConcurrentHashMap<>();
+
+    private static final class Peer {
+        volatile ElectionService election;
+        volatile double rttMicros = -1;
+        volatile long lastSuccess;
+        final AtomicLong lookups = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+    }
+
+    /** @param addressOf node id to "host:port", or null if unknown */
+    public PeerDirectory(IntFunction<String> addressOf) {
+        this.addressOf = addressOf;
+    }
+
+    /** Runs 'call' on the node's ElectionService, resolving the stub if needed. */
+    public <T> T call(int nodeId, ElectionCall<T> call) throws RemoteException, NotBoundException {
+        Peer p = peers.computeIfAbsent(nodeId, k -> new Peer());
+        ElectionService stub = election(nodeId, p);
+        try {
+            return timed(p, stub, call);
+        } catch (NoSuchObjectException e) {
+            // Peer restarted since we cached its stub: look it up again once
+            p.failures.incrementAndGet();
+            invalidate(nodeId);
+            try {
+                return timed(p, election(nodeId, p), call);
+            } catch (RemoteException retry) {
+                p.failures.incrementAndGet();
+                invalidate(nodeId);
+                throw retry;
+            }
+        } catch (RemoteException e) {
+            p.failures.incrementAndGet();
+            invalidate(nodeId);
+            throw e;
+        }
+    }
+
+    private <T> T timed(Peer p, ElectionService stub, ElectionCall<T> call) throws RemoteException {
+        long start = System.nanoTime();
+        T result = call.call(stub);
+        double micros = (System.nanoTime() - start) / 1000.0;
+        p.rttMicros = p.rttMicros < 0 ? micros : p.rttMicros * 0.8 + micros * 0.2;
+        p.lastSuccess = System.currentTimeMillis();
+        return result;
+    }
+
+    private ElectionService election(int nodeId, Peer p) throws RemoteException, NotBoundException {
+        ElectionService stub = p.election;
+        if (stub == null) {
+            stub = (ElectionService) registry(nodeId).lookup("Node_" + nodeId);
+            p.lookups.incrementAndGet();
+            p.election = stub;
+        }
+        return stub;
+    }
+
+    private Registry registry(int nodeId) throws RemoteException {
+        String addr = addressOf.apply(nodeId);
+        if (addr == null) {
+            throw new RemoteException("No address configured for Node " + nodeId);
+        }
+        String[] parts = addr.split(":");
+        return LocateRegistry.getRegistry(parts[0], Integer.parseInt(parts[1]));
+    }
+
+    /**
+     * Forgets the cached stub and RTT (it measured the old stub); the next call
+     * looks the node up again.
+     */
+    public void invalidate(int nodeId) {
+        Peer p = peers.get(nodeId);
+        if (p != null) {
+            p.election = null;
+            p.rttMicros = -1;
+        }
+    }
+
+    public String getStats() {
+        StringBuilder sb = new StringBuilder("Peers:");
+        for (Map.Entry<Integer, Peer> e : peers.entrySet()) {
+            Peer p = e.getValue();
+            sb.append(String.format("%n  Node %d: rtt=%.0fus lookups=%d failures=%d cached=%s", e.getKey(),
+                    p.rttMicros, p.lookups.get(), p.failures.get(), p.election != null));
+        }
+        return sb.toString();
+    }
+}
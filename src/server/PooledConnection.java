@@ -0,0 +1,217 @@
+package server;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A connection on loan from a {@link ConnectionPool}.
+ * close() hands it back to the pool instead of closing the socket.
+ *
+ * prepareStatement() is served from a per-connection LRU cache keyed by SQL
+ * text. The returned statement is safe to use in try-with-resources: close()
+ * clears its parameters and parks it in the cache instead of closing it.
+ * A connection only ever has one borrower, so the cache needs no locking.
+ */
+public class PooledConnection implements AutoCloseable {
+    private final ConnectionPool pool;
+    private final Connection raw;
+    private final int stmtCacheSize;
+    private final LinkedHashMap<String, CachedStatement> stmtCache;
+
+    private volatile long borrowedAtNanos;
+    private volatile long lastUsedNanos;
+    private volatile String borrowerName;
+    private volatile boolean leakReported;
+
+    PooledConnection(ConnectionPool pool, Connection raw, int stmtCacheSize) {
+        this.pool = pool;
+        this.raw = raw;
+        this.lastUsedNanos = System.nanoTime();
+        this.stmtCacheSize = stmtCacheSize;
+        this.stmtCache = new LinkedHashMap<String, CachedStatement>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+                if (size() <= PooledConnection.this.stmtCacheSize) {
+                    return false;
+                }
+                eldest.getValue().evict();
+                pool.recordStatementEviction();
+                return true;
+            }
+        };
+    }
+
+    public Connection getRaw() {
+        return raw;
+    }
+
+    public PreparedStatement prepareStatement(String sql) throws SQLException {
+        if (stmtCacheSize <= 0) {
+            return raw.prepareStatement(sql);
+        }
+        CachedStatement cached = stmtCache.get(sql);
+        if (cached != null && cached.evicted) {
+            stmtCache.remove(sql);
+            cached = null;
+        }
+        if (cached != null && !cached.inUse) {
+            pool.recordStatementHit();
+            cached.inUse = true;
+            return cached.proxy;
+        }
+        pool.recordStatementMiss();
+        if (cached != null) {
+            // Same SQL already open further up the call stack; hand out a plain one
+            return raw.prepareStatement(sql);
+        }
+        cached = new CachedStatement(raw.prepareStatement(sql));
+        cached.inUse = true;
+        stmtCache.put(sql, cached);
+        return cached.proxy;
+    }
+
+    public Statement createStatement() throws SQLException {
+        return raw.createStatement();
+    }
+
+    public void setAutoCommit(boolean autoCommit) throws SQLException {
+        raw.setAutoCommit(autoCommit);
+    }
+
+    public void commit() throws SQLException {
+        raw.commit();
+    }
+
+    public void rollback() throws SQLException {
+        raw.rollback();
+    }
+
+    @Override
+    public void close() {
+        pool.release(this);
+    }
+
+    void markBorrowed() {
+        borrowedAtNanos = System.nanoTime();
+        borrowerName = Thread.currentThread().getName();
+        leakReported = false;
+    }
+
+    /**
+     * Undoes anything a borrower left behind (open transaction, autocommit off).
+     *
+     * @return false if the connection is no longer fit for reuse
+     */
+    boolean resetForReuse() {
+        lastUsedNanos = System.nanoTime();
+        try {
+            if (raw.isClosed()) {
+                return false;
+            }
+            if (!raw.getAutoCommit()) {
+                raw.rollback();
+                raw.setAutoCommit(true);
+            }
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    void closeQuietly() {
+        for (CachedStatement cached : stmtCache.values()) {
+            cached.evict();
+        }
+        stmtCache.clear();
+        try {
+            raw.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    long getBorrowedAtNanos() {
+        return borrowedAtNanos;
+    }
+
+    long getLastUsedNanos() {
+        return lastUsedNanos;
+    }
+
+    String getBorrowerName() {
+        return borrowerName;
+    }
+
+    boolean isLeakReported() {
+        return leakReported;
+    }
+
+    void setLeakReported() {
+        leakReported = true;
+    }
+
+    /**
+     * A physical statement owned by the cache. Borrowers see it through a proxy
+     * whose close() only returns it to the cache.
+     */
+    private static final class CachedStatement implements InvocationHandler {
+        private final PreparedStatement physical;
+        private final PreparedStatement proxy;
+        private boolean inUse;
+        private boolean evicted;
+
+        CachedStatement(PreparedStatement physical) {
+            this.physical = physical;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                    new Class<?>[] { PreparedStatement.class }, this);
+        }
+
+        @Override
+        public Object invoke(Object p, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    inUse = false;
+                    if (!evicted) {
+                        try {
+                            physical.clearParameters();
+                            return null;
+                        } catch (SQLException e) {
+                            evicted = true; // Broken; never hand it out again
+                        }
+                    }
+                    physical.close();
+                    return null;
+                case "isClosed":
+                    return !inUse || physical.isClosed();
+                case "equals":
+                    return p == args[0];
+                case "hashCode":
+                    return System.identityHashCode(p);
+                default:
+                    try {
+                        return method.invoke(physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+
+        /** Dropped from the cache: close now, or on the borrower's close() if still in use. */
+        void evict() {
+            evicted = true;
+            if (!inUse) {
+                try {
+                    physical.close();
+                } catch (SQLException ignored) {
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package server;
+
+import common.Question;
+import common.QuizReadService;
+import java.rmi.RemoteException;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read-only exam-start calls served by a backup node (bound as "QuizReadService"
+ * while the node is not leading).
+ *
+ * Subjects and question lists come from the shared database through this node's
+ * own caches. Authoring calls only invalidate the leader's caches, so these use
+ * short TTLs (reads.*TtlMs) instead: a freshly published exam may be refused
+ * here for up to reads.subjectTtlMs.
+ *
+ * "Already submitted?" is answered from a SubmissionIndex warmed from the
+ * database and then fed by the leader's replication stream, resets included.
+ * That also covers records still in the leader's write-behind queue. Until
+ * the index is warm, the database is queried.
+ *
+ * Time checks use this node's clock; nodes are expected to be NTP-synced.
+ */
+public class QuizReadServiceImpl extends UnicastRemoteObject implements QuizReadService {
+    private static final long serialVersionUID = 1L;
+
+    private final QuizServer serverContext;
+    private final DatabaseManager dbManager;
+    private final SubmissionIndex submissions = new SubmissionIndex();
+
+    private final ReadThroughCache<Integer, List<Question>> questionCache = new ReadThroughCache<>(
+            "ReadQuestionCache",
+            ServerConfig.getInt("cache.questions.maxSubjects", 256),
+            ServerConfig.getLong("reads.questionTtlMs", 30 * 1000));
+
+    private final ReadThroughCache<String, common.Subject> subjectCache = new ReadThroughCache<>(
+            "ReadSubjectCodeCache",
+            ServerConfig.getInt("cache.subjects.maxEntries", 1024),
+            ServerConfig.getLong("reads.subjectTtlMs", 5 * 1000),
+            ServerConfig.getLong("cache.subjects.negativeTtlMs", 5 * 1000));
+
+    public QuizReadServiceImpl(QuizServer serverContext, DatabaseManager dbManager) throws RemoteException {
+        super();
+        this.serverContext = serverContext;
+        this.dbManager = dbManager;
+    }
+
+    @Override
+    public common.Subject validateSubjectCode(String code, int studentId) throws RemoteException {
+        if (code == null || code.trim().isEmpty()) {
+            throw new RemoteException("Invalid Subject Code.");
+        }
+        try {
+            common.Subject subject = subjectCache.get(code.trim(), c -> {
+                try {
+                    return dbManager.findSubjectByCode(c);
+                } catch (java.sql.SQLException e) {
+                    throw new IllegalStateException(e.getMessage(), e); // Not cached
+                }
+            });
+            if (subject == null) {
+                throw new RemoteException("Invalid Subject Code.");
+            }
+            boolean submitted = submissions.isWarm() ? submissions.contains(subject.getId(), studentId)
+                    : dbManager.hasStudentSubmitted(studentId, subject.getId());
+            QuizServiceImpl.checkExamOpen(subject, submitted);
+            return subject;
+        } catch (RemoteException e) {
+            throw e;
+        } catch (Exception e) {
+            e.printStackTrace();
+            throw new RemoteException(e.getMessage());
+        }
+    }
+
+    @Override
+    public List<Question> getQuestions(int subjectId) throws RemoteException {
+        List<Question> snapshot = questionCache.get(subjectId, id -> {
+            List<Question> fresh = dbManager.getQuestions(id);
+            return fresh.isEmpty() ? null : Collections.unmodifiableList(fresh);
+        });
+        return snapshot != null ? new ArrayList<>(snapshot) : new ArrayList<>();
+    }
+
+    @Override
+    public long getServerTime() throws RemoteException {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public common.ShuffleStrategy getShuffleStrategy() throws RemoteException {
+        return new SmartShuffler();
+    }
+
+    @Override
+    public List<String> getClusterTopology() throws RemoteException {
+        return serverContext.getTopologyStrings();
+    }
+
+    /** Called for every record the leader ships to this node. */
+    void noteSubmission(int studentId, int subjectId) {
+        submissions.add(subjectId, studentId);
+    }
+
+    /** Called when the leader ships an admin reset. */
+    void noteReset(int studentId, int subjectId) {
+        submissions.remove(subjectId, studentId);
+    }
+
+    /**
+     * Forgets cached state and rewarms the submission index in the background;
+     * called when this node goes back to serving reads. Records replicated
+     * meanwhile are replayed onto the rebuilt index.
+     */
+    void reset() {
+        questionCache.invalidateAll();
+        subjectCache.invalidateAll();
+        Thread warmer = new Thread(() -> submissions.warm(dbManager), "read-index-warm");
+        warmer.setDaemon(true);
+        warmer.start();
+    }
+
+    public String getStats() {
+        return "ReadService: " + submissions.getStats() + "\n  " + questionCache.getStats()
+                + "\n  " + subjectCache.getStats();
+    }
+}
@@ -5,13 +5,20 @@ import java.rmi.RemoteException;
 import java.rmi.registry.LocateRegistry;
 import java.rmi.registry.Registry;
 import java.rmi.server.UnicastRemoteObject;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class QuizServer extends UnicastRemoteObject implements ElectionService {
     private int nodeId;
-    private int currentLeaderId = -1;
-    private boolean isCoordinator = false;
+    private volatile int currentLeaderId = -1;
+    private volatile boolean isCoordinator = false;
 
     // Config
     private java.util.Properties config;
@@ -19,17 +26,55 @@ public class QuizServer extends UnicastRemoteObject implements ElectionService {
     private int myPort = 1099; // Default
 
     private QuizServiceImpl quizService;
+    // Bound as QuizReadService while this node is a backup
+    private QuizReadServiceImpl readService;
+    private ReplicationShipper replication;
+    // Cached stubs for the other nodes (heartbeats, elections, replication)
+    private PeerDirectory peers;
+    // Backup side of log shipping: senderId -> { session, highest seq applied }
+    private final java.util.Map<Integer, long[]> replicaProgress = new java.util.HashMap<>();
     private Registry registry;
 
+    // Failure detection and elections (failover.* in config.properties)
+    private final long heartbeatIntervalMs = Math.max(20, ServerConfig.getLong("failover.heartbeatIntervalMs", 250));
+    private final long electionTimeoutMs = Math.max(50, ServerConfig.getLong("failover.electionTimeoutMs", 500));
+    private final FailureDetector detector = FailureDetector.create(heartbeatIntervalMs);
+    private final ScheduledExecutorService clusterTimer = Executors.newScheduledThreadPool(3, threads("heartbeat", false));
+    private final ExecutorService electionPool = Executors.newCachedThreadPool(threads("election", true));
+    // Journal replay may wait on the database, so it stays off the heartbeat threads
+    private final ScheduledExecutorService journalTimer = Executors
+            .newSingleThreadScheduledExecutor(threads("journal-replay", true));
+    private final AtomicBoolean electionRunning = new AtomicBoolean(false);
+    private volatile long lastElectionAt;
+
+    // Leader lease (lease.* in config.properties). The lease row in the shared DB
+    // decides who may serve QuizService; each acquisition starts a new epoch, and
+    // messages carrying an older epoch than one already seen are refused.
+    private final long leaseMs = Math.max(100, ServerConfig.getLong("lease.durationMs", 1500));
+    private final AtomicLong knownEpoch = new AtomicLong();
+    private volatile long leaseValidUntilNanos;
+
+    // Time to new leader, measured from the old leader's last heartbeat
+    private volatile long leaderLastSeenAt = -1;
+    private volatile long leaderSuspectedAt = -1;
+    private long failovers;
+    private long lastFailoverMs;
+    private long maxFailoverMs;
+    private long totalFailoverMs;
+
     public QuizServer(int id) throws RemoteException {
         super();
         this.nodeId = id;
         loadConfig();
         this.quizService = new QuizServiceImpl(this);
+        this.readService = new QuizReadServiceImpl(this, quizService.getDbManager());
+        this.peers = new PeerDirectory(peer -> config.getProperty("node." + peer));
+        this.replication = new ReplicationShipper(nodeId, peers, knownEpoch::get);
 
         System.out.println("Server Node " + params(nodeId) + " started on Port " + myPort);
 
         startHeartbeat();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "shutdown-" + nodeId));
     }
 
     private void loadConfig() {
@@ -112,6 +157,11 @@ public class QuizServer extends UnicastRemoteObject implements ElectionService {
         return nodeId;
     }
 
+    // Local (non-RMI) accessor
+    int localNodeId() {
+        return nodeId;
+    }
+
     @Override
     public int getCurrentLeaderId() throws RemoteException {
         return currentLeaderId;
@@ -125,18 +175,34 @@ public class QuizServer extends UnicastRemoteObject implements ElectionService {
     @Override
     public void startElection(int senderId) throws RemoteException {
         // If I have a LOWER ID than sender, I take over the election (Priority to Node
-        // 1)
+        // 1). Returning normally is the "OK" answer; the election itself runs in the
+        // background so the sender is not held up by our own round of messages.
         if (this.nodeId < senderId) {
+            if (isCoordinator) {
+                // Already leading: just tell the sender again
+                electionPool.execute(() -> announceTo(senderId));
+                return;
+            }
             System.out.println("Received Election msg from " + senderId + ". I have LOWER ID. Taking over.");
-            startElectionRoutine();
+            electionPool.execute(this::startElectionRoutine);
         }
     }
 
     @Override
-    public void declareCoordinator(int leaderId) throws RemoteException {
+    public void declareCoordinator(int leaderId, long epoch) throws RemoteException {
+        if (isStale(epoch)) {
+            System.out.println("Ignoring stale coordinator Node " + leaderId + " (epoch " + epoch + " < "
+                    + knownEpoch.get() + ")");
+            throw new RemoteException("Stale epoch " + epoch + "; current epoch is " + knownEpoch.get());
+        }
+        boolean wasCoordinator = isCoordinator;
         this.currentLeaderId = leaderId;
         this.isCoordinator = (leaderId == this.nodeId);
+        long now = System.currentTimeMillis();
+        detector.reset(now);
         System.out.println("NEW COORDINATOR DECLARED: Node " + leaderId);
+        recordFailover(leaderId);
+        leaderLastSeenAt = now;
 
         if (!isCoordinator) {
             System.out.println("Switching to BACKUP mode. Monitoring Leader...");
@@ -146,60 +212,141 @@ public class QuizServer extends UnicastRemoteObject implements ElectionService {
             } catch (Exception e) {
                 // Ignore if not bound
             }
+            if (wasCoordinator) {
+                quizService.onStepDown();
+                journalTimer.execute(quizService::replayJournal);
+                bindFollowerReads();
+            }
+        }
+    }
+
+    @Override
+    public long replicateBatch(int senderId, long epoch, long session,
+            java.util.List<common.ReplicationRecord> batch) throws RemoteException {
+        if (isStale(epoch)) {
+            return -1; // From a leader that has since been replaced
+        }
+        synchronized (replicaProgress) {
+            long[] progress = replicaProgress.get(senderId);
+            if (progress == null || progress[0] != session) {
+                progress = new long[] { session, 0 }; // New leader run: seqs start over
+                replicaProgress.put(senderId, progress);
+            }
+            for (common.ReplicationRecord rec : batch) {
+                if (rec.getSeq() > progress[1]) {
+                    if (rec.isReset()) {
+                        readService.noteReset(rec.getStudentId(), rec.getSubjectId());
+                    } else {
+                        quizService.applyReplicated(rec);
+                        readService.noteSubmission(rec.getStudentId(), rec.getSubjectId());
+                    }
+                    progress[1] = rec.getSeq();
+                }
+            }
+            return progress[1];
         }
     }
 
     // ---------------- Internal Logic ----------------
 
+    /**
+     * Bully election. Election messages go to every higher-priority (lower ID)
+     * node at once; the first "OK" means someone else will lead. If none answers
+     * within failover.electionTimeoutMs, this node takes over.
+     */
     private void startElectionRoutine() {
-        System.out.println("Starting Election Process...");
-        isCoordinator = true; // Assume I win until proven otherwise
+        if (!electionRunning.compareAndSet(false, true)) {
+            return; // The election already in progress will settle it
+        }
+        try {
+            lastElectionAt = System.currentTimeMillis();
+            System.out.println("Starting Election Process...");
 
-        for (int id : allNodes) {
-            // Look for anyone with a LOWER ID (higher priority)
-            if (id < this.nodeId) {
-                try {
-                    String targetHost = config.getProperty("node." + id).split(":")[0];
-                    int targetPort = Integer.parseInt(config.getProperty("node." + id).split(":")[1]);
-                    Registry targetReg = LocateRegistry.getRegistry(targetHost, targetPort);
-                    ElectionService node = (ElectionService) targetReg.lookup("Node_" + id);
-                    if (node != null) {
-                        node.startElection(this.nodeId);
-                        isCoordinator = false; // Someone higher is alive
-                    }
-                } catch (Exception e) {
-                    // Node likely down, continue assuming I might win
+            java.util.List<Integer> higher = new java.util.ArrayList<>();
+            for (int id : allNodes) {
+                // Look for anyone with a LOWER ID (higher priority)
+                if (id < this.nodeId) {
+                    higher.add(id);
                 }
             }
+
+            if (!anyAnswers(higher)) {
+                becomeLeader();
+            } else {
+                isCoordinator = false; // Someone higher is alive; wait for its announcement
+            }
+        } finally {
+            electionRunning.set(false);
         }
+    }
 
-        if (isCoordinator) {
-            becomeLeader();
+    private boolean anyAnswers(java.util.List<Integer> nodes) {
+        if (nodes.isEmpty()) {
+            return false;
+        }
+        ExecutorCompletionService<Integer> replies = new ExecutorCompletionService<>(electionPool);
+        for (int id : nodes) {
+            replies.submit(() -> {
+                peers.call(id, node -> {
+                    node.startElection(this.nodeId);
+                    return null;
+                });
+                return id;
+            });
         }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(electionTimeoutMs);
+        try {
+            for (int i = 0; i < nodes.size(); i++) {
+                Future<Integer> reply = replies.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (reply == null) {
+                    return false; // Whoever has not answered by now is treated as down
+                }
+                try {
+                    reply.get();
+                    return true;
+                } catch (ExecutionException e) {
+                    // Node likely down, continue assuming I might win
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
     }
 
     private void becomeLeader() {
         try {
-            System.out.println("!!! I AM THE NEW LEADER (Coordinator) !!!");
+            long epoch = acquireLease();
+            if (epoch < 0) {
+                // Someone holds an unexpired lease: follow it. If it is the leader we just
+                // lost, the detector gives up on it again and the next round retries.
+                int holder = leaseHolder();
+                System.out.println("Leader lease is held by Node " + holder + ". Following it.");
+                isCoordinator = false;
+                if (holder > 0 && holder != nodeId) {
+                    detector.reset(System.currentTimeMillis());
+                    currentLeaderId = holder;
+                } else {
+                    currentLeaderId = -1;
+                }
+                return;
+            }
+            System.out.println("!!! I AM THE NEW LEADER (Coordinator), epoch " + epoch + " !!!");
             currentLeaderId = nodeId;
             isCoordinator = true;
+            recordFailover(nodeId);
 
-            // Announce to other nodes (who have HIGHER IDs)
+            // Announce to other nodes (who have HIGHER IDs), all at once
             for (int id : allNodes) {
                 if (id > this.nodeId) {
-                    try {
-                        String targetHost = config.getProperty("node." + id).split(":")[0];
-                        int targetPort = Integer.parseInt(config.getProperty("node." + id).split(":")[1]);
-                        Registry targetReg = LocateRegistry.getRegistry(targetHost, targetPort);
-                        ElectionService node = (ElectionService) targetReg.lookup("Node_" + id);
-                        node.declareCoordinator(this.nodeId);
-                    } catch (Exception e) {
-                        /* Ignore */ }
+                    electionPool.execute(() -> announceTo(id));
                 }
             }
 
             // Bind the main QuizService for clients
+            quizService.onBecomeLeader();
             registry.rebind("QuizService", quizService);
+            registry.rebind("QuizReadService", quizService); // The leader answers reads from its warm state
             System.out.println(">> QuizService bound to Registry on port " + myPort + ". Ready for Clients.");
 
         } catch (Exception e) {
@@ -207,32 +354,236 @@ public class QuizServer extends UnicastRemoteObject implements ElectionService {
         }
     }
 
+    private void announceTo(int id) {
+        long epoch = knownEpoch.get();
+        try {
+            peers.call(id, node -> {
+                node.declareCoordinator(this.nodeId, epoch);
+                return null;
+            });
+        } catch (Exception e) {
+            /* Ignore */ }
+    }
+
+    /**
+     * Pings and verdicts run as separate tasks: a ping stuck on an unreachable
+     * leader only stops heartbeats from arriving, which is exactly what the
+     * detector needs to see.
+     */
     private void startHeartbeat() {
-        new Timer().schedule(new TimerTask() {
-            @Override
-            public void run() {
-                if (isCoordinator)
-                    return;
-
-                if (currentLeaderId != -1) {
-                    try {
-                        String leaderHost = config.getProperty("node." + currentLeaderId).split(":")[0];
-                        int leaderPort = Integer.parseInt(config.getProperty("node." + currentLeaderId).split(":")[1]);
-                        Registry leaderReg = LocateRegistry.getRegistry(leaderHost, leaderPort);
-                        ElectionService leader = (ElectionService) leaderReg.lookup("Node_" + currentLeaderId);
-                        leader.isAlive(); // Ping
-                        // System.out.print("."); // Heartbeat log
-                    } catch (Exception e) {
-                        System.err.println("\nLeader (Node " + currentLeaderId + ") has CRASHED!");
-                        currentLeaderId = -1;
-                        startElectionRoutine();
-                    }
-                } else {
-                    // No leader known, try election
-                    startElectionRoutine();
+        clusterTimer.scheduleWithFixedDelay(this::pingLeader, 1000, heartbeatIntervalMs, TimeUnit.MILLISECONDS);
+        clusterTimer.scheduleAtFixedRate(this::checkLeader, 1000, Math.max(10, heartbeatIntervalMs / 2),
+                TimeUnit.MILLISECONDS);
+        clusterTimer.scheduleWithFixedDelay(this::renewLease, leaseMs / 3, leaseMs / 3, TimeUnit.MILLISECONDS);
+        long statsMs = ServerConfig.getLong("stats.logIntervalMs", 60 * 1000);
+        if (statsMs > 0) {
+            clusterTimer.scheduleWithFixedDelay(this::logStats, statsMs, statsMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // ---------------- Leader Lease ----------------
+
+    private boolean leasesEnabled() {
+        return !quizService.getDbManager().isMockMode();
+    }
+
+    /** @return the new epoch, or -1 if another node still holds the lease */
+    private long acquireLease() {
+        if (!leasesEnabled()) {
+            return knownEpoch.incrementAndGet(); // No shared DB to arbitrate: node-local epochs
+        }
+        long start = System.nanoTime();
+        try {
+            long epoch = quizService.getDbManager().acquireLeaderLease(nodeId, leaseMs);
+            if (epoch > 0) {
+                // Counted from before the request, so we always stop before the DB thinks it expired
+                leaseValidUntilNanos = start + TimeUnit.MILLISECONDS.toNanos(leaseMs);
+                observeEpoch(epoch);
+            }
+            return epoch;
+        } catch (java.sql.SQLException e) {
+            System.err.println("Could not acquire leader lease: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    private int leaseHolder() {
+        try {
+            return quizService.getDbManager().getLeaderLeaseHolder();
+        } catch (java.sql.SQLException e) {
+            return -1;
+        }
+    }
+
+    private void renewLease() {
+        if (!isCoordinator || !leasesEnabled()) {
+            return;
+        }
+        long start = System.nanoTime();
+        long epoch = knownEpoch.get();
+        try {
+            if (quizService.getDbManager().renewLeaderLease(nodeId, epoch, leaseMs)) {
+                leaseValidUntilNanos = start + TimeUnit.MILLISECONDS.toNanos(leaseMs);
+            } else {
+                stepDown("lease epoch " + epoch + " was taken over");
+            }
+        } catch (java.sql.SQLException e) {
+            if (System.nanoTime() - leaseValidUntilNanos > 0) {
+                stepDown("lease expired (" + e.getMessage() + ")");
+            }
+        }
+    }
+
+    /** True while this node may accept writes as leader. */
+    boolean holdsLease() {
+        return isCoordinator && (!leasesEnabled() || System.nanoTime() - leaseValidUntilNanos < 0);
+    }
+
+    private void stepDown(String reason) {
+        if (!isCoordinator) {
+            return;
+        }
+        System.err.println("Stepping down as leader: " + reason);
+        isCoordinator = false;
+        currentLeaderId = -1;
+        try {
+            registry.unbind("QuizService");
+            System.out.println(">> Unbound QuizService (Backup Mode).");
+        } catch (Exception e) {
+            // Ignore if not bound
+        }
+        quizService.onStepDown();
+        journalTimer.execute(quizService::replayJournal);
+        bindFollowerReads();
+    }
+
+    private void bindFollowerReads() {
+        try {
+            readService.reset();
+            registry.rebind("QuizReadService", readService);
+        } catch (Exception e) {
+            System.err.println("Could not bind QuizReadService: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Records 'epoch' and tells whether it is older than one already seen. Without a
+     * shared DB, epochs are node-local and not comparable, so nothing is stale.
+     */
+    private boolean isStale(long epoch) {
+        return !observeEpoch(epoch) && leasesEnabled();
+    }
+
+    /** Raises the known epoch to 'epoch'; false if a newer one has already been seen. */
+    private boolean observeEpoch(long epoch) {
+        return knownEpoch.accumulateAndGet(epoch, Math::max) == epoch;
+    }
+
+    private void pingLeader() {
+        int leader = currentLeaderId;
+        if (isCoordinator || leader == -1) {
+            return;
+        }
+        try {
+            peers.call(leader, ElectionService::isAlive); // Ping
+            if (leader == currentLeaderId) {
+                long now = System.currentTimeMillis();
+                detector.heartbeat(now);
+                leaderLastSeenAt = now;
+                leaderSuspectedAt = -1; // It was a false alarm if a failover was under way
+            }
+        } catch (Exception e) {
+            // A missed beat; the detector decides when enough is enough
+        }
+    }
+
+    private void checkLeader() {
+        if (isCoordinator) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        int leader = currentLeaderId;
+        if (leader != -1) {
+            if (detector.isSuspect(now)) {
+                System.err.println("\nLeader (Node " + leader + ") has CRASHED! (" + detector.describe(now) + ")");
+                leaderSuspectedAt = now;
+                if (leaderLastSeenAt < 0) {
+                    leaderLastSeenAt = now - detector.sinceLastHeartbeat(now);
                 }
+                currentLeaderId = -1;
+                electionPool.execute(this::startElectionRoutine);
+            }
+        } else if (!electionRunning.get() && now - lastElectionAt >= electionTimeoutMs) {
+            // No leader known (or the node that answered our election never announced)
+            electionPool.execute(this::startElectionRoutine);
+        }
+    }
+
+    /** Completes a failover measurement if this leader change follows a detected crash. */
+    private void recordFailover(int newLeaderId) {
+        long suspected = leaderSuspectedAt;
+        if (suspected < 0) {
+            return;
+        }
+        leaderSuspectedAt = -1;
+        long now = System.currentTimeMillis();
+        long total = now - leaderLastSeenAt;
+        synchronized (this) {
+            failovers++;
+            lastFailoverMs = total;
+            maxFailoverMs = Math.max(maxFailoverMs, total);
+            totalFailoverMs += total;
+        }
+        System.out.println("Failover to Node " + newLeaderId + " took " + total + " ms (detection "
+                + (suspected - leaderLastSeenAt) + " ms, election " + (now - suspected) + " ms). "
+                + getFailoverStats());
+    }
+
+    public synchronized String getFailoverStats() {
+        return "Failover: count=" + failovers + " lastMs=" + lastFailoverMs + " maxMs=" + maxFailoverMs + " avgMs="
+                + (failovers == 0 ? 0 : totalFailoverMs / failovers) + " heartbeatMs=" + heartbeatIntervalMs
+                + " epoch=" + knownEpoch.get() + " lease=" + (holdsLease() ? "held" : "none")
+                + " detector=[" + detector.describe(System.currentTimeMillis()) + "]";
+    }
+
+    private void logStats() {
+        try {
+            StringBuilder sb = new StringBuilder("[STATS] Node " + nodeId + (isCoordinator ? " (leader)" : ""));
+            sb.append("\n  ").append(quizService.getStats());
+            sb.append("\n  ").append(peers.getStats());
+            sb.append("\n  ").append(getFailoverStats());
+            if (isCoordinator) {
+                sb.append("\n  ").append(replication.getStats());
+            } else {
+                sb.append("\n  ").append(readService.getStats());
             }
-        }, 1000, 2000); // Check every 2 seconds
+            System.out.println(sb);
+        } catch (RuntimeException e) {
+            // Never let a stats bug cancel the timer task
+            System.err.println("Stats log failed: " + e);
+        }
+    }
+
+    /**
+     * Runs on JVM exit (Ctrl+C, SIGTERM). Stops the timers first so the lease is
+     * not renewed while draining, then flushes everything still buffered.
+     */
+    private void shutdown() {
+        System.out.println("Node " + nodeId + " shutting down...");
+        clusterTimer.shutdownNow();
+        electionPool.shutdownNow();
+        journalTimer.shutdownNow();
+        replication.shutdown();
+        quizService.shutdown();
+        System.out.println("Node " + nodeId + " stopped.");
+    }
+
+    private static java.util.concurrent.ThreadFactory threads(String name, boolean daemon) {
+        return r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(daemon);
+            return t;
+        };
     }
 
     public void start() {
@@ -272,6 +623,14 @@ public class QuizServer extends UnicastRemoteObject implements ElectionService {
             // Register Self for Election
             registry.rebind("Node_" + nodeId, this);
             System.out.println("Registered as 'Node_" + nodeId + "'");
+            bindFollowerReads();
+
+            // Submissions acknowledged before a crash or step-down go in before this node
+            // takes part in elections; retried in the background while the DB is away
+            quizService.replayJournal();
+            long replayMs = Math.max(1000, ServerConfig.getLong("submissions.replayIntervalMs", 10000));
+            journalTimer.scheduleWithFixedDelay(quizService::replayJournal, replayMs, replayMs,
+                    TimeUnit.MILLISECONDS);
 
             // Start Election now that Registry is ready
             startElectionRoutine();
@@ -281,29 +640,12 @@ public class QuizServer extends UnicastRemoteObject implements ElectionService {
         }
     }
 
-    public void broadcastReplication(int studentId, int score) {
-        new Thread(() -> {
-            System.out.println("Broadcasting replication to " + (allNodes.size() - 1) + " nodes...");
-            for (int id : allNodes) {
-                if (id == this.nodeId)
-                    continue; // Skip self
+    public void broadcastReplication(int studentId, int subjectId, int score) {
+        replication.ship(allNodes, studentId, subjectId, score);
+    }
 
-                try {
-                    String targetHost = config.getProperty("node." + id).split(":")[0];
-                    int targetPort = Integer.parseInt(config.getProperty("node." + id).split(":")[1]);
-                    Registry targetReg = LocateRegistry.getRegistry(targetHost, targetPort);
-                    // Replication is part of QuizService, so look that up?
-                    // Actually, QuizService is bound to "QuizService".
-                    // But if we have multiple servers on same host, we rely on the port.
-                    // Let's assume on a different port, "QuizService" is the correct name.
-                    common.QuizService qs = (common.QuizService) targetReg.lookup("QuizService");
-                    qs.replicateSubmission(studentId, score);
-                    System.out.println("-> Replicated to Node " + id);
-                } catch (Exception e) {
-                    // System.err.println("Failed to replicate to Node " + id);
-                }
-            }
-        }).start();
+    public void broadcastReset(int studentId, int subjectId) {
+        replication.shipReset(allNodes, studentId, subjectId);
     }
 
     public static void main(String[] args) {
@@ -316,6 +658,13 @@ public class QuizServer extends UnicastRemoteObject implements ElectionService {
             }
         }
 
+        // Bound every outgoing RMI call (pings, elections, replication) so an unreachable
+        // peer cannot hold a thread forever
+        if (System.getProperty("sun.rmi.transport.tcp.responseTimeout") == null) {
+            System.setProperty("sun.rmi.transport.tcp.responseTimeout",
+                    String.valueOf(ServerConfig.getLong("failover.rmiResponseTimeoutMs", 3000)));
+        }
+
         try {
             new QuizServer(id).start();
         } catch (RemoteException e) {
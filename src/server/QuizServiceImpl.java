@@ -5,17 +5,69 @@ import common.QuizService;
 import common.User;
 import java.rmi.RemoteException;
 import java.rmi.server.UnicastRemoteObject;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
 public class QuizServiceImpl extends UnicastRemoteObject implements QuizService {
     private DatabaseManager dbManager;
     private QuizServer serverContext;
+    private final int nodeId;
+    private final GradingEngine grader = new GradingEngine();
+    // Only set while leading (see onBecomeLeader/onStepDown). Null when write-behind is
+    // disabled or unavailable: submissions are then written inline
+    private volatile SubmissionWriter submissionWriter;
+    // Held while a writer is started or stopped and while the journal is replayed
+    // without one, so the two never touch the journal file at the same time
+    private final Object journalOwner = new Object();
+    // Answers "already submitted?" without a query once warmed (see onBecomeLeader)
+    private final SubmissionIndex submissionIndex = new SubmissionIndex();
+    private final Leaderboards leaderboards = new Leaderboards();
+    private final ItemAnalysis itemAnalysis;
+    private AsyncFileAppender resultsLog;
+    private AsyncFileAppender replicaLog;
+    // Fixed-width record of every result and replica event (see SubmissionLogTool)
+    private SubmissionBinaryLog binaryLog;
+
+    // A running exam's questions never change, so every student in the room can be
+    // served from one immutable snapshot. Invalidated by the authoring calls below.
+    private final ReadThroughCache<Integer, List<Question>> questionCache = new ReadThroughCache<>(
+            "QuestionCache",
+            ServerConfig.getInt("cache.questions.maxSubjects", 256),
+            ServerConfig.getLong("cache.questions.ttlMs", 10 * 60 * 1000));
+
+    // Access code -> Subject. Unknown codes are remembered briefly so mistyped codes
+    // don't each cost a query. Invalidated by the subject lifecycle calls below.
+    private final ReadThroughCache<String, common.Subject> subjectCache = new ReadThroughCache<>(
+            "SubjectCodeCache",
+            ServerConfig.getInt("cache.subjects.maxEntries", 1024),
+            ServerConfig.getLong("cache.subjects.ttlMs", 60 * 1000),
+            ServerConfig.getLong("cache.subjects.negativeTtlMs", 5 * 1000));
 
     public QuizServiceImpl(QuizServer serverContext) throws RemoteException {
         super();
         this.serverContext = serverContext;
         this.dbManager = new DatabaseManager();
+        this.itemAnalysis = new ItemAnalysis(dbManager,
+                serverContext != null ? serverContext::holdsLease : () -> true);
+        this.nodeId = serverContext != null ? serverContext.localNodeId() : 0;
+        try {
+            this.resultsLog = new AsyncFileAppender("ResultsLog", "results_log.txt", "results");
+            // Every node writes replicas, so nodes sharing a directory get their own file
+            this.replicaLog = new AsyncFileAppender("ReplicaLog",
+                    ServerConfig.perNodeFile(ServerConfig.getString("replicaLog.file", "replica_log.txt"), nodeId),
+                    "replicaLog");
+        } catch (java.io.IOException e) {
+            System.err.println("Text result logs disabled: " + e.getMessage());
+        }
+        if (ServerConfig.getBoolean("binlog.enabled", true)) {
+            try {
+                this.binaryLog = new SubmissionBinaryLog(nodeId);
+            } catch (java.io.IOException e) {
+                System.err.println("Binary submission log disabled: " + e.getMessage());
+            }
+        }
     }
 
     @Override
@@ -27,61 +79,211 @@ public class QuizServiceImpl extends UnicastRemoteObject implements QuizService
     @Override
     public common.Subject validateSubjectCode(String code, int studentId) throws RemoteException {
         System.out.println("Validating Subject Code: " + code + " for Student: " + studentId);
+        if (code == null || code.trim().isEmpty()) {
+            throw new RemoteException("Invalid Subject Code.");
+        }
         try {
-            common.Subject subject = dbManager.getSubjectByCode(code, studentId);
+            common.Subject subject = subjectCache.get(code.trim(), c -> {
+                try {
+                    return dbManager.findSubjectByCode(c);
+                } catch (java.sql.SQLException e) {
+                    throw new IllegalStateException(e.getMessage(), e); // Not cached
+                }
+            });
             if (subject == null) {
-                // If null, it means code invalid OR generic error.
-                // Using exception message from DB would be better, but getSubjectByCode returns
-                // null or throws.
-                // My DB Update in Step 96 THROWS Exception for "Draft" or "Already Submitted".
-                // So I need to catch that.
                 throw new RemoteException("Invalid Subject Code.");
             }
 
-            long now = System.currentTimeMillis();
-            if (subject.getStartTime() != null) {
-                long start = subject.getStartTime().getTime();
-                if (now < start) {
-                    throw new RemoteException("Exam has not started yet.\nStarts at: " + subject.getStartTime());
-                }
-            }
-            if (subject.getEndTime() != null) {
-                long end = subject.getEndTime().getTime();
-                if (now > end) {
-                    throw new RemoteException("Exam has ended.\nEnded at: " + subject.getEndTime());
-                }
-            }
-
+            // Fail secure: a DB error here rejects the student rather than allowing a resubmit
+            checkExamOpen(subject, hasSubmitted(studentId, subject.getId()));
             return subject;
+        } catch (RemoteException e) {
+            throw e;
         } catch (Exception e) {
-            // Propagate the specific message (Draft / Already Submitted)
+            e.printStackTrace();
             throw new RemoteException(e.getMessage());
         }
     }
 
+    /** The checks a student must pass to start an exam (shared with QuizReadServiceImpl). */
+    static void checkExamOpen(common.Subject subject, boolean alreadySubmitted) throws RemoteException {
+        if (alreadySubmitted) {
+            throw new RemoteException("You have already submitted this exam.");
+        }
+        if (!subject.isPublished()) {
+            throw new RemoteException("This exam is not yet published."); // Draft mode
+        }
+
+        // Time window checks use the cached subject; no I/O
+        long now = System.currentTimeMillis();
+        if (subject.getStartTime() != null) {
+            long start = subject.getStartTime().getTime();
+            if (now < start) {
+                throw new RemoteException("Exam has not started yet.\nStarts at: " + subject.getStartTime());
+            }
+        }
+        if (subject.getEndTime() != null) {
+            long end = subject.getEndTime().getTime();
+            if (now > end) {
+                throw new RemoteException("Exam has ended.\nEnded at: " + subject.getEndTime());
+            }
+        }
+    }
+
     @Override
     public List<Question> getQuestions(int subjectId) throws RemoteException {
         // ... same ...
         System.out.println("Fetching questions for Subject ID: " + subjectId);
-        return dbManager.getQuestions(subjectId);
+        List<Question> snapshot = questionCache.get(subjectId, id -> {
+            List<Question> fresh = dbManager.getQuestions(id);
+            // Empty usually means a DB hiccup or a draft; don't pin that in the cache
+            return fresh.isEmpty() ? null : Collections.unmodifiableList(fresh);
+        });
+        // Hand RMI a plain copy: the client shuffles the list it receives in place
+        return snapshot != null ? new ArrayList<>(snapshot) : new ArrayList<>();
+    }
+
+    private boolean hasSubmitted(int studentId, int subjectId) throws java.sql.SQLException {
+        if (submissionIndex.isWarm()) {
+            return submissionIndex.contains(subjectId, studentId);
+        }
+        return dbManager.hasStudentSubmitted(studentId, subjectId);
+    }
+
+    /**
+     * Called by QuizServer before QuizService is bound on this node. Another node
+     * may have been taking submissions until now, so in-memory state is rebuilt
+     * from the shared database.
+     */
+    public void onBecomeLeader() {
+        startSubmissionWriter();
+        subjectCache.invalidateAll();
+        questionCache.invalidateAll();
+        dbManager.invalidateAllAnswerKeys();
+        submissionIndex.warm(dbManager);
+        leaderboards.warm(dbManager);
+        itemAnalysis.warm();
+    }
+
+    /**
+     * Called by QuizServer once this node no longer leads. Drains what the writer
+     * has queued and stops it; whatever it could not commit stays in the journal
+     * for replayJournal, which QuizServer runs right after this.
+     */
+    public void onStepDown() {
+        synchronized (journalOwner) {
+            SubmissionWriter writer = submissionWriter;
+            submissionWriter = null;
+            if (writer != null) {
+                writer.shutdown();
+                System.out.println("Write-behind stopped. " + writer.getStats());
+            }
+        }
+    }
+
+    /**
+     * Commits submissions left in this node's journal while it has no writer:
+     * at startup, after stepping down, and periodically until the database takes
+     * them (submissions.replayIntervalMs). Acknowledged submissions therefore
+     * reach the database without waiting for this node to lead again; the replay
+     * skips anything superseded meanwhile, so it is safe under any leader.
+     */
+    public void replayJournal() {
+        if (dbManager.isMockMode()) {
+            return;
+        }
+        synchronized (journalOwner) {
+            if (submissionWriter != null) {
+                return; // The writer replayed it when it started and owns it now
+            }
+            try {
+                SubmissionWriter.replayJournal(dbManager, nodeId);
+            } catch (Exception e) {
+                System.err.println("[WRITE-BEHIND] Journal replay deferred: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Called from the JVM shutdown hook: commits queued submissions and item
+     * counters, flushes the logs, then closes the pool they all write through.
+     */
+    public void shutdown() {
+        onStepDown();
+        itemAnalysis.shutdown();
+        if (resultsLog != null) {
+            resultsLog.shutdown();
+            replicaLog.shutdown();
+        }
+        if (binaryLog != null) {
+            binaryLog.shutdown();
+        }
+        ConnectionPool pool = dbManager.getPool();
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    // Replays this node's uncommitted journal tail before taking it over
+    private void startSubmissionWriter() {
+        if (dbManager.isMockMode() || !ServerConfig.getBoolean("submissions.writeBehind", true)) {
+            return;
+        }
+        synchronized (journalOwner) {
+            if (submissionWriter != null) {
+                return;
+            }
+            try {
+                submissionWriter = new SubmissionWriter(dbManager, nodeId);
+            } catch (Exception e) {
+                System.err.println("Write-behind disabled, falling back to synchronous submission writes: "
+                        + e.getMessage());
+            }
+        }
+    }
+
+    /** Drops the cached subject with this id (its code is not known to the caller). */
+    private void invalidateSubject(int subjectId) {
+        subjectCache.invalidateIf(s -> s != null && s.getId() == subjectId);
     }
 
     @Override
     public int submitMockQuiz(int userId, int subjectId, Map<Integer, String> answers) throws RemoteException {
         System.out.println("User " + userId + " submitted quiz for Subject " + subjectId);
+        if (serverContext != null && !serverContext.holdsLease()) {
+            // Deposed (or cut off from the lease): another node may already be leading
+            throw new RemoteException("Submission Failed: this node is no longer the leader. Please retry.");
+        }
         int score = 0;
         try {
-            score = dbManager.calculateScore(userId, subjectId, answers);
-        } catch (java.sql.SQLException e) {
+            AnswerKey key = dbManager.getAnswerKey(subjectId);
+            byte[] responses = grader.encode(key, answers);
+            score = grader.score(key, responses);
+            SubmissionWriter writer = submissionWriter;
+            if (writer != null) {
+                // Acknowledged once journaled; the writer thread batches it into MySQL
+                writer.submit(userId, subjectId, score, key.size());
+            } else {
+                dbManager.recordSubmission(userId, subjectId, score, key.size());
+            }
+            // Only now is the submission durable; a failed or retried one is not counted
+            itemAnalysis.record(key, userId, responses, score);
+            submissionIndex.add(subjectId, userId);
+            leaderboards.record(subjectId, userId, score);
+        } catch (java.sql.SQLException | java.io.IOException e) {
             e.printStackTrace();
             throw new RemoteException("Submission Failed: " + e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RemoteException("Submission Failed: server is shutting down.");
         }
 
         logResultToFile(userId, score);
+        logBinary(SubmissionBinaryLog.TYPE_RESULT, userId, subjectId, score);
 
         // Broadcast to Replicas
         if (serverContext != null) {
-            serverContext.broadcastReplication(userId, score);
+            serverContext.broadcastReplication(userId, subjectId, score);
         }
 
         return score;
@@ -90,31 +292,49 @@ public class QuizServiceImpl extends UnicastRemoteObject implements QuizService
     @Override
     public boolean addSubject(String name, String code, java.sql.Timestamp start, java.sql.Timestamp end, int creatorId)
             throws RemoteException {
-        return dbManager.addSubject(name, code, start, end, creatorId);
+        boolean ok = dbManager.addSubject(name, code, start, end, creatorId);
+        // The code may be sitting in the cache as a negative entry (possibly under another case)
+        subjectCache.invalidateIf(
+                s -> s == null || (code != null && code.trim().equalsIgnoreCase(s.getAccessCode())));
+        return ok;
     }
 
     @Override
     public boolean publishSubject(int subjectId) throws RemoteException {
-        return dbManager.publishSubject(subjectId);
+        boolean ok = dbManager.publishSubject(subjectId);
+        questionCache.invalidate(subjectId);
+        invalidateSubject(subjectId);
+        return ok;
     }
 
     @Override
     public boolean addQuestion(int subjectId, String text, String a, String b, String c, String d, String correct)
             throws RemoteException {
-        return dbManager.addQuestion(subjectId, text, a, b, c, d, correct);
+        boolean ok = dbManager.addQuestion(subjectId, text, a, b, c, d, correct);
+        questionCache.invalidate(subjectId);
+        return ok;
     }
 
     @Override
     public void replicateSubmission(int studentId, int score) throws RemoteException {
+        // Legacy single-record path; the leader now ships batches via ElectionService.replicateBatch
         System.out.println("[REPLICA] Received update: Student " + studentId + " scored " + score);
-        // In a real system, we might update a local cache or standby DB here.
-        // For now, we log it to prove consistency.
-        try (java.io.FileWriter fw = new java.io.FileWriter("replica_log.txt", true);
-                java.io.PrintWriter pw = new java.io.PrintWriter(fw)) {
-            pw.println("REPLICA SYNC | Student: " + studentId + " | Score: " + score);
-        } catch (java.io.IOException e) {
-            e.printStackTrace();
+        logReplica(studentId, 0, score);
+    }
+
+    /** Applies one record shipped by the leader (called in seq order by QuizServer). */
+    void applyReplicated(common.ReplicationRecord rec) {
+        // The DB is shared, so a backup only records the event; its in-memory state
+        // is rebuilt from the DB if it takes over
+        logReplica(rec.getStudentId(), rec.getSubjectId(), rec.getScore());
+    }
+
+    private void logReplica(int studentId, int subjectId, int score) {
+        if (replicaLog != null) {
+            replicaLog.append("REPLICA SYNC | Student: " + studentId + " | Subject: " + subjectId + " | Score: "
+                    + score);
         }
+        logBinary(SubmissionBinaryLog.TYPE_REPLICA, studentId, subjectId, score);
     }
 
     @Override
@@ -122,17 +342,62 @@ public class QuizServiceImpl extends UnicastRemoteObject implements QuizService
         return System.currentTimeMillis();
     }
 
-    // Mutual Exclusion for file writing (Phase 3 requirement)
-    private synchronized void logResultToFile(int userId, int score) {
-        try (java.io.FileWriter fw = new java.io.FileWriter("results_log.txt", true);
-                java.io.PrintWriter pw = new java.io.PrintWriter(fw)) {
-
-            pw.println("Time: " + System.currentTimeMillis() + " | UserID: " + userId + " | Score: " + score);
-            System.out.println("Result logged to file (Thread-Safe).");
+    // Mutual Exclusion for file writing (Phase 3 requirement): only the appender
+    // thread touches results_log.txt, so submitters just enqueue a line
+    private void logResultToFile(int userId, int score) {
+        if (resultsLog != null) {
+            resultsLog.append("Time: " + System.currentTimeMillis() + " | UserID: " + userId + " | Score: " + score);
+        }
+    }
 
+    private void logBinary(int type, int studentId, int subjectId, int score) {
+        if (binaryLog == null)
+            return;
+        try {
+            binaryLog.append(type, studentId, subjectId, score);
         } catch (java.io.IOException e) {
-            e.printStackTrace();
+            System.err.println("Binary log append failed: " + e.getMessage());
+        }
+    }
+
+    public DatabaseManager getDbManager() {
+        return dbManager;
+    }
+
+    // Admin views must not miss submissions still sitting in the write-behind queue
+    private void awaitPendingSubmissions() {
+        SubmissionWriter writer = submissionWriter;
+        if (writer == null)
+            return;
+        try {
+            if (!writer.awaitDrained(5000)) {
+                System.err.println("Write-behind still draining; results may lag. " + writer.getStats());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** One line per component, for the periodic stats log (stats.logIntervalMs). */
+    public String getStats() {
+        StringBuilder sb = new StringBuilder();
+        ConnectionPool pool = dbManager.getPool();
+        sb.append(pool != null ? pool.getStats() : "DB Pool: none (mock mode)");
+        sb.append("\n  ").append(questionCache.getStats());
+        sb.append("\n  ").append(subjectCache.getStats());
+        sb.append("\n  ").append(submissionIndex.getStats());
+        SubmissionWriter writer = submissionWriter;
+        if (writer != null) {
+            sb.append("\n  ").append(writer.getStats());
+        }
+        if (resultsLog != null) {
+            sb.append("\n  ").append(resultsLog.getStats());
+            sb.append("\n  ").append(replicaLog.getStats());
+        }
+        if (binaryLog != null) {
+            sb.append("\n  ").append(binaryLog.getStats());
         }
+        return sb.toString();
     }
 
     @Override
@@ -149,7 +414,17 @@ public class QuizServiceImpl extends UnicastRemoteObject implements QuizService
     @Override
     public boolean resetStudentSubmission(int studentId, int subjectId) throws RemoteException {
         System.out.println("Admin resetting submission for Student ID: " + studentId + " Subject ID: " + subjectId);
-        return dbManager.resetStudentSubmissionForSubject(studentId, subjectId);
+        awaitPendingSubmissions();
+        boolean ok = dbManager.resetStudentSubmissionForSubject(studentId, subjectId);
+        if (ok) {
+            submissionIndex.remove(subjectId, studentId);
+            leaderboards.remove(subjectId, studentId);
+            itemAnalysis.remove(subjectId, studentId);
+            if (serverContext != null) {
+                serverContext.broadcastReset(studentId, subjectId);
+            }
+        }
+        return ok;
     }
 
     @Override
@@ -182,7 +457,9 @@ public class QuizServiceImpl extends UnicastRemoteObject implements QuizService
     // New Admin Review Workflow Methods
     @Override
     public boolean approveExamDraft(int subjectId) throws RemoteException {
-        return dbManager.approveExamDraft(subjectId);
+        boolean ok = dbManager.approveExamDraft(subjectId);
+        invalidateSubject(subjectId);
+        return ok;
     }
 
     @Override
@@ -195,16 +472,64 @@ public class QuizServiceImpl extends UnicastRemoteObject implements QuizService
         return dbManager.getQuestionCount(subjectId);
     }
 
+    @Override
+    public List<common.Subject> getCreatorExamOverview(int creatorId) throws RemoteException {
+        return dbManager.getCreatorExamOverview(creatorId);
+    }
+
+    @Override
+    public List<common.Subject> getPendingExamOverview() throws RemoteException {
+        return dbManager.getPendingExamOverview();
+    }
+
     @Override
     public boolean deleteSubject(int subjectId) throws RemoteException {
-        return dbManager.deleteSubject(subjectId);
+        boolean ok = dbManager.deleteSubject(subjectId);
+        questionCache.invalidate(subjectId);
+        invalidateSubject(subjectId);
+        if (ok) {
+            submissionIndex.removeSubject(subjectId);
+            leaderboards.removeSubject(subjectId);
+            itemAnalysis.removeSubject(subjectId);
+        }
+        return ok;
     }
 
     @Override
     public List<common.User> getStudentSubmissionsForExam(int subjectId) throws RemoteException {
+        awaitPendingSubmissions();
         return dbManager.getStudentSubmissionsForExam(subjectId);
     }
 
+    @Override
+    public common.SubmissionPage getSubmissionPage(int subjectId, String search, boolean submittedOnly,
+            boolean ranked, int pageSize, String cursor) throws RemoteException {
+        if (cursor == null) {
+            awaitPendingSubmissions(); // Later pages continue the snapshot the first page saw
+        }
+        return dbManager.getSubmissionPage(subjectId, search, submittedOnly, ranked, pageSize, cursor);
+    }
+
+    @Override
+    public List<common.LeaderboardEntry> getLeaderboard(int subjectId, int topK) throws RemoteException {
+        return leaderboards.top(subjectId, Math.max(0, Math.min(topK, 1000)));
+    }
+
+    @Override
+    public common.LeaderboardEntry getStudentStanding(int subjectId, int studentId) throws RemoteException {
+        return leaderboards.standing(subjectId, studentId);
+    }
+
+    @Override
+    public common.ScoreStats getScoreStats(int subjectId) throws RemoteException {
+        return leaderboards.stats(subjectId);
+    }
+
+    @Override
+    public List<common.ItemStatistic> getItemAnalysis(int subjectId) throws RemoteException {
+        return itemAnalysis.getStatistics(subjectId);
+    }
+
     // New Admin User Management
     @Override
     public boolean addTeacher(String username, String password, String fullName, String department)
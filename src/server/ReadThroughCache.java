@@ -0,0 +1,208 @@
+package server;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Small read-through cache for data that is read far more often than it changes.
+ *
+ * Concurrent misses on the same key are collapsed into a single load, so a room
+ * of students asking for the same exam at the same moment costs one query. The
+ * load runs outside the map: the first caller publishes a future for the key
+ * and the others wait on it, so a slow query never holds a map bin lock.
+ * Entries expire after 'ttlMs'; when the cache grows past 'maxEntries' the
+ * oldest-loaded entry is evicted. A loader returning null means "do not cache",
+ * unless 'negativeTtlMs' is set, in which case the miss itself is remembered for
+ * that long (so repeated lookups of a key that doesn't exist stay off the DB).
+ */
+public class ReadThroughCache<K, V> {
+    private final String name;
+    private final int maxEntries;
+    private final long ttlMs;
+    private final long negativeTtlMs;
+    private final ConcurrentHashMap<K, Entry<V>> map = new ConcurrentHashMap<>();
+    // Loads in progress; waiters join the future instead of querying again
+    private final ConcurrentHashMap<K, CompletableFuture<Entry<V>>> loading = new ConcurrentHashMap<>();
+    // Bumped on every invalidation so a load that raced with one is not cached
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong negativeHits = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private static final class Entry<V> {
+        final V value; // null for a negative entry
+        final long loadedAt;
+        final long ttl;
+
+        Entry(V value, long loadedAt, long ttl) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+            this.ttl = ttl;
+        }
+
+        boolean isFresh(long now) {
+            return now - loadedAt < ttl;
+        }
+    }
+
+    public ReadThroughCache(String name, int maxEntries, long ttlMs) {
+        this(name, maxEntries, ttlMs, 0);
+    }
+
+    public ReadThroughCache(String name, int maxEntries, long ttlMs, long negativeTtlMs) {
+        this.name = name;
+        this.maxEntries = maxEntries;
+        this.ttlMs = ttlMs;
+        this.negativeTtlMs = negativeTtlMs;
+    }
+
+    /**
+     * Returns the cached value, loading it on a miss. Returns null if the key has
+     * no value (freshly loaded or remembered as a negative entry). A loader that
+     * throws caches nothing and the exception reaches the caller.
+     */
+    public V get(K key, Function<K, V> loader) {
+        long now = System.currentTimeMillis();
+        Entry<V> e = map.get(key);
+        if (e != null && e.isFresh(now)) {
+            countHit(e);
+            return e.value;
+        }
+
+        // Missing or stale: one caller loads, the rest wait for its result
+        CompletableFuture<Entry<V>> mine = new CompletableFuture<>();
+        CompletableFuture<Entry<V>> inFlight = loading.putIfAbsent(key, mine);
+        if (inFlight != null) {
+            Entry<V> loaded = await(inFlight);
+            if (loaded == null) {
+                return null; // Not cacheable; the loader had no value to hand back either
+            }
+            countHit(loaded);
+            return loaded.value;
+        }
+
+        try {
+            e = map.get(key);
+            if (e != null && e.isFresh(System.currentTimeMillis())) {
+                // Loaded by a caller that finished between our first look and putIfAbsent
+                mine.complete(e);
+                countHit(e);
+                return e.value;
+            }
+            long gen = generation.get();
+            V value = loader.apply(key);
+            Entry<V> fresh = null;
+            if (value != null) {
+                fresh = new Entry<>(value, System.currentTimeMillis(), ttlMs);
+            } else if (negativeTtlMs > 0) {
+                fresh = new Entry<>(null, System.currentTimeMillis(), negativeTtlMs);
+            }
+            misses.incrementAndGet();
+            if (fresh != null && gen == generation.get()) {
+                map.put(key, fresh);
+                evictIfFull();
+            }
+            mine.complete(fresh);
+            return value;
+        } catch (RuntimeException | Error ex) {
+            mine.completeExceptionally(ex); // Waiters see the same failure; nothing is cached
+            throw ex;
+        } finally {
+            loading.remove(key, mine);
+        }
+    }
+
+    private static <V> Entry<V> await(CompletableFuture<Entry<V>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        }
+    }
+
+    private void countHit(Entry<V> e) {
+        hits.incrementAndGet();
+        if (e.value == null) {
+            negativeHits.incrementAndGet();
+        }
+    }
+
+    public void invalidate(K key) {
+        generation.incrementAndGet();
+        loading.remove(key);
+        if (map.remove(key) != null) {
+            invalidations.incrementAndGet();
+        }
+    }
+
+    /** Drops every entry whose value matches; negative entries are tested with null. */
+    public void invalidateIf(Predicate<V> matches) {
+        generation.incrementAndGet();
+        loading.clear();
+        for (Map.Entry<K, Entry<V>> e : map.entrySet()) {
+            if (matches.test(e.getValue().value) && map.remove(e.getKey(), e.getValue())) {
+                invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        loading.clear();
+        invalidations.addAndGet(map.size());
+        map.clear();
+    }
+
+    private void evictIfFull() {
+        while (map.size() > maxEntries) {
+            K oldestKey = null;
+            long oldest = Long.MAX_VALUE;
+            for (Map.Entry<K, Entry<V>> e : map.entrySet()) {
+                if (e.getValue().loadedAt < oldest) {
+                    oldest = e.getValue().loadedAt;
+                    oldestKey = e.getKey();
+                }
+            }
+            if (oldestKey == null || map.remove(oldestKey) == null) {
+                return;
+            }
+            evictions.incrementAndGet();
+        }
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public String getStats() {
+        long h = hits.get();
+        long m = misses.get();
+        double ratio = (h + m) == 0 ? 0 : (100.0 * h / (h + m));
+        return String.format(
+                "%s: size=%d hits=%d (negative=%d) misses=%d hitRatio=%.1f%% evictions=%d invalidations=%d",
+                name, map.size(), h, negativeHits.get(), m, ratio, evictions.get(), invalidations.get());
+    }
+}
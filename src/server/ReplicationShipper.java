@@ -0,0 +1,194 @@
+package server;
+
+import common.ReplicationRecord;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Ships graded submissions from the leader to every backup.
+ *
+ * Each peer has its own bounded queue and one sender thread, so a slow or dead
+ * peer only delays itself. A sender drains up to replication.batchSize records
+ * into one replicateBatch call through the PeerDirectory's cached stub; the
+ * call returns the highest seq the peer has applied, and only then is the batch
+ * released. On failure the same batch is retried with backoff. If a peer's
+ * queue is full the oldest record is dropped (and counted): the leader never
+ * waits on replication. A peer that refuses a batch because it has seen a newer
+ * leader epoch gets nothing more from that batch; this node is being deposed.
+ *
+ * Seqs must reach every peer queue in order: the backup skips anything at or
+ * below the highest seq it has applied, so a lower seq arriving late would be
+ * acknowledged and lost. ship() therefore takes the seq and enqueues under one
+ * lock (enqueue never blocks, so the lock is held only for a few offers).
+ */
+public class ReplicationShipper {
+    private final int selfId;
+    private final long session = System.currentTimeMillis();
+    private final int batchSize;
+    private final int queueCapacity;
+    private final AtomicLong nextSeq = new AtomicLong(1);
+    private final Object shipLock = new Object();
+    private final Map<Integer, PeerSender> senders = new ConcurrentHashMap<>();
+    private final PeerDirectory peers;
+    private final LongSupplier epoch;
+
+    public ReplicationShipper(int selfId, PeerDirectory peers, LongSupplier epoch) {
+        this.selfId = selfId;
+        this.peers = peers;
+        this.epoch = epoch;
+        this.batchSize = Math.max(1, ServerConfig.getInt("replication.batchSize", 256));
+        this.queueCapacity = Math.max(1, ServerConfig.getInt("replication.queueCapacity", 50000));
+    }
+
+    /** Queues a submission for every node in 'nodes' other than this one. Never blocks. */
+    public void ship(Iterable<Integer> nodes, int studentId, int subjectId, int score) {
+        synchronized (shipLock) {
+            enqueueAll(nodes, new ReplicationRecord(nextSeq.getAndIncrement(), studentId, subjectId, score,
+                    System.currentTimeMillis()));
+        }
+    }
+
+    /** Queues an admin reset, so backups stop treating the student as submitted. */
+    public void shipReset(Iterable<Integer> nodes, int studentId, int subjectId) {
+        synchronized (shipLock) {
+            enqueueAll(nodes, ReplicationRecord.reset(nextSeq.getAndIncrement(), studentId, subjectId,
+                    System.currentTimeMillis()));
+        }
+    }
+
+    // Caller holds shipLock
+    private void enqueueAll(Iterable<Integer> nodes, ReplicationRecord rec) {
+        for (int id : nodes) {
+            if (id != selfId) {
+                senders.computeIfAbsent(id, PeerSender::new).enqueue(rec);
+            }
+        }
+    }
+
+    public String getStats() {
+        StringBuilder sb = new StringBuilder("Replication: session=" + session + " lastSeq=" + (nextSeq.get() - 1));
+        for (PeerSender s : senders.values()) {
+            sb.append("\n  ").append(s.stats());
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Lets every sender ship what is queued, waiting up to
+     * replication.shutdownTimeoutMs in total; senders still busy after that
+     * (peer down) are stopped and their records are left to the DB catch-up.
+     */
+    public void shutdown() {
+        long deadline = System.currentTimeMillis()
+                + Math.max(0, ServerConfig.getLong("replication.shutdownTimeoutMs", 5000));
+        for (PeerSender s : senders.values()) {
+            s.draining = true;
+        }
+        for (PeerSender s : senders.values()) {
+            try {
+                s.thread.join(Math.max(1, deadline - System.currentTimeMillis()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            s.running = false;
+            s.thread.interrupt();
+            if (!s.queue.isEmpty()) {
+                System.err.println("[REPLICATION] Node " + s.peerId + ": " + s.queue.size()
+                        + " records not shipped before shutdown.");
+            }
+        }
+    }
+
+    private final class PeerSender implements Runnable {
+        private final int peerId;
+        private final ArrayBlockingQueue<ReplicationRecord> queue = new ArrayBlockingQueue<>(queueCapacity);
+        private final Thread thread;
+        private volatile boolean running = true;
+        // Set by shutdown(): exit once the queue and the current batch are empty
+        private volatile boolean draining = false;
+
+        private final AtomicLong shipped = new AtomicLong();
+        private final AtomicLong calls = new AtomicLong();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong dropped = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private volatile long ackedSeq;
+
+        PeerSender(int peerId) {
+            this.peerId = peerId;
+            this.thread = new Thread(this, "replication-node-" + peerId);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        void enqueue(ReplicationRecord rec) {
+            while (!queue.offer(rec)) {
+                if (queue.poll() != null) {
+                    dropped.incrementAndGet(); // Peer far behind; it will catch up from the DB on takeover
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            List<ReplicationRecord> batch = new ArrayList<>(batchSize);
+            long backoff = 200;
+            while (running) {
+                try {
+                    if (batch.isEmpty()) {
+                        if (draining && queue.isEmpty()) {
+                            return;
+                        }
+                        ReplicationRecord first = queue.poll(draining ? 0 : 500, TimeUnit.MILLISECONDS);
+                        if (first == null) {
+                            continue;
+                        }
+                        batch.add(first);
+                        queue.drainTo(batch, batchSize - 1);
+                    }
+                    ackedSeq = send(batch); // The peer has applied (or already had) the whole batch
+                    batch.clear();
+                    backoff = 200;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    // Keep the batch and retry; the peer skips anything it already applied
+                    failures.incrementAndGet();
+                    try {
+                        Thread.sleep(backoff);
+                    } catch (InterruptedException ie) {
+                        return;
+                    }
+                    backoff = Math.min(backoff * 2, 5000);
+                }
+            }
+        }
+
+        private long send(List<ReplicationRecord> batch) throws Exception {
+            List<ReplicationRecord> payload = new ArrayList<>(batch);
+            long sentEpoch = epoch.getAsLong();
+            long ack = peers.call(peerId, node -> node.replicateBatch(selfId, sentEpoch, session, payload));
+            calls.incrementAndGet();
+            if (ack < 0) {
+                rejected.addAndGet(batch.size());
+                System.err.println("[REPLICATION] Node " + peerId + " refused epoch " + sentEpoch + " as stale.");
+                return ackedSeq;
+            }
+            shipped.addAndGet(batch.size());
+            return ack;
+        }
+
+        String stats() {
+            return "Node " + peerId + ": queued=" + queue.size() + " shipped=" + shipped.get() + " calls="
+                    + calls.get() + " acked=" + ackedSeq + " failures=" + failures.get() + " dropped=" + dropped.get()
+                    + " rejected=" + rejected.get();
+        }
+    }
+}
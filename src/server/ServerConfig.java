@@ -0,0 +1,76 @@
+package server;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Tunables for the server side, read from config.properties.
+ * A JVM system property with the same key (-Dkey=value) overrides the file.
+ */
+public final class ServerConfig {
+    private static final Properties props = new Properties();
+
+    static {
+        try (InputStream input = new FileInputStream("config.properties")) {
+            props.load(input);
+        } catch (Exception e) {
+            // No config file: every caller falls back to its default
+        }
+    }
+
+    private ServerConfig() {
+    }
+
+    public static String getString(String key, String def) {
+        String val = System.getProperty(key);
+        if (val == null) {
+            val = props.getProperty(key);
+        }
+        return val != null ? val.trim() : def;
+    }
+
+    public static int getInt(String key, int def) {
+        try {
+            return Integer.parseInt(getString(key, String.valueOf(def)));
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid value for '" + key + "', using default " + def);
+            return def;
+        }
+    }
+
+    public static long getLong(String key, long def) {
+        try {
+            return Long.parseLong(getString(key, String.valueOf(def)));
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid value for '" + key + "', using default " + def);
+            return def;
+        }
+    }
+
+    public static double getDouble(String key, double def) {
+        try {
+            return Double.parseDouble(getString(key, String.valueOf(def)));
+        } catch (NumberFormatException e) {
+            System.err.println("Invalid value for '" + key + "', using default " + def);
+            return def;
+        }
+    }
+
+    public static boolean getBoolean(String key, boolean def) {
+        return Boolean.parseBoolean(getString(key, String.valueOf(def)));
+    }
+
+    /**
+     * Per-node variant of a configured path, for files that nodes sharing a
+     * working directory must not share: replica_log.txt -> replica_log-node-2.txt
+     */
+    public static File perNodeFile(String configured, int nodeId) {
+        int dot = configured.lastIndexOf('.');
+        int sep = Math.max(configured.lastIndexOf('/'), configured.lastIndexOf('\\'));
+        String suffix = "-node-" + nodeId;
+        return new File(dot > sep ? configured.substring(0, dot) + suffix + configured.substring(dot)
+                : configured + suffix);
+    }
+}
@@ -1,90 +1,422 @@
 package server;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileReader;
-import java.sql.Connection;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
 import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Streams tab-separated student rosters into the 'students' table.
+ * One file or many (a directory or glob, parsed in parallel).
+ *
+ * Rows are inserted with JDBC batching, 'chunkSize' rows per transaction.
+ * Usernames already in the database (or repeated in the file) are filtered
+ * out before insert instead of relying on duplicate-key errors. After every
+ * chunk the last committed line number is saved in journal_checkpoints in the
+ * same transaction, so a failed import can be re-run and resumes where it
+ * stopped.
+ */
 public class StudentImporter {
+    private static final String INSERT_SQL = "INSERT INTO students (username, password, full_name, department) VALUES (?, ?, ?, ?)";
 
-    public static void main(String[] args) {
-        String csvFile = "students.csv"; // Assuming run from project root
-        if (args.length > 0) {
-            csvFile = args[0];
+    private final DatabaseManager db;
+    private final int chunkSize;
+    private final int parallelism = Math.max(1,
+            ServerConfig.getInt("import.parallelism", Runtime.getRuntime().availableProcessors()));
+    // If set, every imported student gets this password instead of the file's column
+    private final String defaultPassword;
+
+    /** Counters for one import run. */
+    public static class ImportStats {
+        public final String source;
+        public long rowsParsed;
+        public long skipped; // Blank, comment and header lines
+        public long malformed;
+        public long duplicates;
+        public long inserted;
+        public long resumedFromLine;
+        public long elapsedMs;
+
+        public ImportStats(String source) {
+            this.source = source;
         }
 
-        System.out.println("Starting import from: " + csvFile);
+        public double rowsPerSecond() {
+            return elapsedMs == 0 ? 0 : inserted * 1000.0 / elapsedMs;
+        }
 
-        File f = new File(csvFile);
-        if (!f.exists()) {
-            System.err.println("File not found: " + f.getAbsolutePath());
-            return;
+        public void add(ImportStats other) {
+            rowsParsed += other.rowsParsed;
+            skipped += other.skipped;
+            malformed += other.malformed;
+            duplicates += other.duplicates;
+            inserted += other.inserted;
         }
 
-        DatabaseManager dbManager = new DatabaseManager();
-        Connection conn = dbManager.getConnection();
+        @Override
+        public String toString() {
+            return String.format("%s: parsed=%d inserted=%d duplicates=%d malformed=%d skipped=%d (%.0f rows/sec)",
+                    source, rowsParsed, inserted, duplicates, malformed, skipped, rowsPerSecond());
+        }
+    }
 
-        if (conn == null) {
-            System.err.println("Failed to connect to database.");
-            return;
+    public StudentImporter(DatabaseManager db, String defaultPassword) {
+        this(db, defaultPassword, ServerConfig.getInt("import.chunkSize", 500));
+    }
+
+    public StudentImporter(DatabaseManager db, String defaultPassword, int chunkSize) {
+        this.db = db;
+        this.defaultPassword = defaultPassword;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    /**
+     * Parses one roster line into {username, password, fullName, department}.
+     *
+     * @return null for lines to skip silently (blank, comment, header)
+     * @throws IllegalArgumentException for malformed lines
+     */
+    public static String[] parseLine(String line) {
+        if (line.trim().isEmpty() || line.startsWith("//")) {
+            return null;
+        }
+        String[] parts = line.split("\t");
+        // Header check (heuristic: see if 'Default User Name' is present)
+        if (parts.length > 0 && parts[0].equalsIgnoreCase("Default User Name")) {
+            return null;
+        }
+        if (parts.length < 9) {
+            throw new IllegalArgumentException("expected 9 columns, found " + parts.length);
+        }
+        String username = parts[0].trim();
+        if (username.isEmpty()) {
+            throw new IllegalArgumentException("empty username");
+        }
+        String fullName = parts[2].trim() + " " + parts[3].trim() + " " + parts[4].trim();
+        return new String[] { username, parts[1].trim(), fullName, parts[8].trim() };
+    }
+
+    /** Usernames already present, so duplicates are filtered before insert. */
+    public static Set<String> loadExistingUsernames(PooledConnection conn) throws SQLException {
+        Set<String> usernames = new HashSet<>();
+        try (PreparedStatement ps = conn.prepareStatement("SELECT username FROM students");
+                ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                usernames.add(rs.getString(1).toLowerCase());
+            }
+        }
+        return usernames;
+    }
+
+    public ImportStats importFile(File csv) throws IOException, SQLException {
+        try (PooledConnection conn = db.borrowConnection()) {
+            return importFile(csv, conn);
+        }
+    }
+
+    public ImportStats importFile(File csv, PooledConnection conn) throws IOException, SQLException {
+        return importAll(Collections.singletonList(csv), conn).get(0);
+    }
+
+    public List<ImportStats> importAll(List<File> files) throws IOException, SQLException {
+        try (PooledConnection conn = db.borrowConnection()) {
+            return importAll(files, conn);
+        }
+    }
+
+    /**
+     * Imports several roster files at once. Files are parsed in parallel on a
+     * bounded pool; parsed rows flow through a bounded queue to a single writer
+     * (this thread) that owns duplicate detection and the chunked transactions.
+     * Each file keeps its own resume checkpoint: a chunk may mix rows from
+     * several files, but each file's rows arrive in line order, so the highest
+     * committed line per file is a safe resume point.
+     *
+     * @return per-file statistics, in the order of 'files'
+     */
+    public List<ImportStats> importAll(List<File> files, PooledConnection conn) throws IOException, SQLException {
+        List<FileJob> jobs = new ArrayList<>();
+        for (File f : files) {
+            FileJob job = new FileJob(f);
+            job.resumeAfter = db.getJournalCheckpoint(conn, job.checkpointName);
+            job.stats.resumedFromLine = job.resumeAfter;
+            if (job.resumeAfter > 0) {
+                System.out.println("Resuming import of " + f.getName() + " after line " + job.resumeAfter);
+            }
+            jobs.add(job);
         }
 
-        String sql = "INSERT INTO students (username, password, full_name, department) VALUES (?, ?, ?, ?)";
-        int count = 0;
+        Set<String> known = loadExistingUsernames(conn);
+        BlockingQueue<ParsedRow> rows = new ArrayBlockingQueue<>(Math.max(chunkSize * 4, 1000));
+        int threads = Math.max(1, Math.min(parallelism, jobs.size()));
+        ExecutorService parsers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "roster-parser");
+            t.setDaemon(true);
+            return t;
+        });
+        List<Future<?>> parsing = new ArrayList<>();
+        for (FileJob job : jobs) {
+            parsing.add(parsers.submit(() -> parse(job, rows)));
+        }
+        parsers.shutdown();
+        // Tells the writer that no more rows will come once every parser is done
+        Thread closer = new Thread(() -> {
+            try {
+                parsers.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+                rows.put(ParsedRow.DONE);
+            } catch (InterruptedException ignored) {
+            }
+        }, "roster-parser-closer");
+        closer.setDaemon(true);
+        closer.start();
+
+        long start = System.currentTimeMillis();
+        long lastReport = start;
+        long inserted = 0;
+        boolean autoCommit = conn.getRaw().getAutoCommit();
+        conn.setAutoCommit(false);
+
+        try (PreparedStatement ps = conn.prepareStatement(INSERT_SQL)) {
+            List<ParsedRow> chunk = new ArrayList<>(chunkSize);
+            List<FileJob> finished = new ArrayList<>();
+            while (true) {
+                ParsedRow r = rows.take();
+                if (r == ParsedRow.DONE) {
+                    break;
+                }
+                if (r.row == null) {
+                    finished.add(r.job); // End of file; checkpoint is cleared after its last chunk commits
+                    continue;
+                }
+                if (!known.add(r.row[0].toLowerCase())) {
+                    r.job.stats.duplicates++;
+                    continue;
+                }
+                ps.setString(1, r.row[0]);
+                ps.setString(2, defaultPassword != null ? defaultPassword : r.row[1]);
+                ps.setString(3, r.row[2]);
+                ps.setString(4, r.row[3]);
+                ps.addBatch();
+                chunk.add(r);
 
-        try (BufferedReader br = new BufferedReader(new FileReader(csvFile));
-                PreparedStatement pstmt = conn.prepareStatement(sql)) {
+                if (chunk.size() >= chunkSize) {
+                    inserted += commitChunk(conn, ps, chunk);
+                    long now = System.currentTimeMillis();
+                    if (now - lastReport >= 1000) {
+                        System.out.printf("  ... %d rows imported (%.0f rows/sec)%n", inserted,
+                                inserted * 1000.0 / Math.max(1, now - start));
+                        lastReport = now;
+                    }
+                }
+            }
+            inserted += commitChunk(conn, ps, chunk);
 
+            for (Future<?> f : parsing) {
+                f.get(); // Surface parser I/O errors
+            }
+            // Finished files: a later import of a new file with the same name starts from the top
+            for (FileJob job : finished) {
+                db.clearJournalCheckpoint(conn, job.checkpointName);
+            }
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            System.err.println("Import stopped: " + e.getMessage()
+                    + "\nCommitted chunks are kept; re-run the import to resume.");
+            throw e;
+        } catch (InterruptedException e) {
+            conn.rollback();
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted.");
+        } catch (ExecutionException e) {
+            conn.rollback();
+            throw new IOException("Failed to read roster: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            parsers.shutdownNow();
+            closer.interrupt();
+            conn.setAutoCommit(autoCommit);
+        }
+
+        long elapsed = System.currentTimeMillis() - start;
+        List<ImportStats> result = new ArrayList<>();
+        for (FileJob job : jobs) {
+            job.stats.elapsedMs = elapsed;
+            result.add(job.stats);
+        }
+        return result;
+    }
+
+    /** Runs on a parser thread. Only touches the parse-side counters of its own file. */
+    private Void parse(FileJob job, BlockingQueue<ParsedRow> out) throws IOException, InterruptedException {
+        ImportStats stats = job.stats;
+        try (BufferedReader br = new BufferedReader(new FileReader(job.file))) {
             String line;
-            int lineNum = 0;
+            long lineNum = 0;
             while ((line = br.readLine()) != null) {
                 lineNum++;
-                // Skip comments or empty lines
-                if (line.trim().isEmpty() || line.startsWith("//")) {
+                if (lineNum <= job.resumeAfter) {
                     continue;
                 }
-
-                String[] parts = line.split("\t");
-
-                // Header check (heuristic: see if 'Default User Name' is present)
-                if (parts.length > 0 && parts[0].equalsIgnoreCase("Default User Name")) {
+                String[] row;
+                try {
+                    row = parseLine(line);
+                } catch (IllegalArgumentException e) {
+                    stats.malformed++;
+                    System.err.println("Skipping malformed line " + job.file.getName() + ":" + lineNum + " ("
+                            + e.getMessage() + ")");
                     continue;
                 }
-
-                if (parts.length < 9) {
-                    System.err.println("Skipping malformed line " + lineNum + ": " + line);
+                if (row == null) {
+                    stats.skipped++;
                     continue;
                 }
+                stats.rowsParsed++;
+                out.put(new ParsedRow(job, lineNum, row));
+            }
+        }
+        out.put(new ParsedRow(job, -1, null));
+        return null;
+    }
+
+    /** @return rows committed */
+    private int commitChunk(PooledConnection conn, PreparedStatement ps, List<ParsedRow> chunk) throws SQLException {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        ps.executeBatch();
+        Map<FileJob, Long> lastLine = new HashMap<>();
+        for (ParsedRow r : chunk) {
+            lastLine.merge(r.job, r.lineNum, Math::max);
+        }
+        for (Map.Entry<FileJob, Long> e : lastLine.entrySet()) {
+            db.updateJournalCheckpoint(conn, e.getKey().checkpointName, e.getValue());
+        }
+        conn.commit();
+        for (ParsedRow r : chunk) {
+            r.job.stats.inserted++;
+        }
+        int n = chunk.size();
+        chunk.clear();
+        return n;
+    }
+
+    private static final class FileJob {
+        final File file;
+        final String checkpointName;
+        final ImportStats stats;
+        long resumeAfter;
 
-                String username = parts[0].trim();
-                String password = parts[1].trim();
-                String firstName = parts[2].trim();
-                String fatherName = parts[3].trim();
-                String gFatherName = parts[4].trim();
-                String fullName = firstName + " " + fatherName + " " + gFatherName;
-                String department = parts[8].trim();
+        FileJob(File file) {
+            this.file = file;
+            this.checkpointName = "import:" + file.getName();
+            this.stats = new ImportStats(file.getName());
+        }
+    }
 
-                pstmt.setString(1, username);
-                pstmt.setString(2, password);
-                pstmt.setString(3, fullName);
-                pstmt.setString(4, department);
+    private static final class ParsedRow {
+        static final ParsedRow DONE = new ParsedRow(null, -1, null);
 
-                try {
-                    pstmt.executeUpdate();
-                    count++;
-                    // System.out.println("Imported: " + username);
-                } catch (SQLException e) {
-                    if (e.getErrorCode() == 1062) { // Duplicate entry
-                        System.out.println("Skipping duplicate: " + username);
-                    } else {
-                        System.err.println("Error importing " + username + ": " + e.getMessage());
+        final FileJob job;
+        final long lineNum;
+        final String[] row; // null marks the end of job's file
+
+        ParsedRow(FileJob job, long lineNum, String[] row) {
+            this.job = job;
+            this.lineNum = lineNum;
+            this.row = row;
+        }
+    }
+
+    /**
+     * Resolves a command-line target: a single file, a directory (every .csv in
+     * it) or a glob such as rosters/*.csv.
+     */
+    public static List<File> resolveInputs(String target) throws IOException {
+        List<File> files = new ArrayList<>();
+        File f = new File(target);
+        if (f.isDirectory()) {
+            File[] list = f.listFiles((dir, name) -> name.toLowerCase().endsWith(".csv"));
+            if (list != null) {
+                files.addAll(Arrays.asList(list));
+            }
+        } else if (target.contains("*") || target.contains("?")) {
+            Path glob = Paths.get(target);
+            Path dir = glob.getParent() != null ? glob.getParent() : Paths.get(".");
+            PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:" + glob.getFileName());
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (Path p : stream) {
+                    if (Files.isRegularFile(p) && matcher.matches(p.getFileName())) {
+                        files.add(p.toFile());
                     }
                 }
             }
-            System.out.println("Import completed. Total records added: " + count);
+        } else if (f.exists()) {
+            files.add(f);
+        }
+        files.sort((a, b) -> a.getName().compareToIgnoreCase(b.getName()));
+        return files;
+    }
+
+    public static void main(String[] args) {
+        // Accepts a file, a directory of .csv rosters, or a glob (quote it on the shell)
+        String target = "students.csv"; // Assuming run from project root
+        if (args.length > 0) {
+            target = args[0];
+        }
+
+        System.out.println("Starting import from: " + target);
 
+        List<File> files;
+        try {
+            files = resolveInputs(target);
+        } catch (IOException e) {
+            System.err.println("Could not list " + target + ": " + e.getMessage());
+            return;
+        }
+        if (files.isEmpty()) {
+            System.err.println("File not found: " + new File(target).getAbsolutePath());
+            return;
+        }
+
+        DatabaseManager dbManager = new DatabaseManager();
+        if (dbManager.getPool() == null) {
+            System.err.println("Failed to connect to database.");
+            return;
+        }
+
+        try {
+            List<ImportStats> perFile = new StudentImporter(dbManager, null).importAll(files);
+            ImportStats total = new ImportStats("TOTAL (" + perFile.size() + " files)");
+            for (ImportStats st : perFile) {
+                System.out.println("  " + st);
+                total.add(st);
+                total.elapsedMs = st.elapsedMs;
+            }
+            System.out.println("Import completed. " + total);
         } catch (Exception e) {
             e.printStackTrace();
         }
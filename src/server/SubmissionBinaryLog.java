@@ -0,0 +1,237 @@
+package server;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Binary, fixed-width log of graded and replicated submissions, written through
+ * a memory-mapped segment file.
+ *
+ * Record layout (40 bytes, big-endian):
+ *
+ * <pre>
+ *  0 seq        long   strictly increasing per node, never reused
+ *  8 timestamp  long   epoch millis
+ * 16 nodeId     int
+ * 20 studentId  int
+ * 24 subjectId  int    0 when unknown (legacy replica events)
+ * 28 score      int
+ * 32 type       int    TYPE_RESULT or TYPE_REPLICA
+ * 36 crc        int    CRC32 of bytes 0..35
+ * </pre>
+ *
+ * Segments are named submissions-&lt;first seq&gt;.seg and preallocated to
+ * binlog.segmentBytes; a zeroed slot marks the end of the written part. An
+ * append is a bounds check and a few puts into the page cache; pages are forced
+ * to disk every binlog.forceIntervalMs and on rollover. The periodic force runs
+ * outside the append lock, so a slow msync does not stall grading threads. A torn record at the tail
+ * fails its CRC and is where the next start resumes writing.
+ *
+ * SubmissionLogTool reads these segments back (dump / verify / rebuild).
+ */
+public class SubmissionBinaryLog {
+    public static final int RECORD_SIZE = 40;
+    public static final int TYPE_RESULT = 1;
+    public static final int TYPE_REPLICA = 2;
+    static final String PREFIX = "submissions-";
+    static final String SUFFIX = ".seg";
+
+    private final File dir;
+    private final int nodeId;
+    private final int recordsPerSegment;
+
+    private RandomAccessFile segmentFile;
+    private volatile MappedByteBuffer segment; // Read without the lock by force()
+    private int slot; // Next free record slot in the current segment
+    private long nextSeq;
+    private final byte[] scratch = new byte[RECORD_SIZE];
+    private final CRC32 crc = new CRC32();
+    private final ScheduledExecutorService forcer;
+
+    private final AtomicLong appended = new AtomicLong();
+    private final AtomicLong segments = new AtomicLong();
+
+    public SubmissionBinaryLog(int nodeId) throws IOException {
+        this.nodeId = nodeId;
+        this.dir = new File(ServerConfig.getString("binlog.dir", "binlog") + File.separator + "node-" + nodeId);
+        long segmentBytes = ServerConfig.getLong("binlog.segmentBytes", 4L * 1024 * 1024);
+        this.recordsPerSegment = (int) Math.max(1, Math.min(segmentBytes, Integer.MAX_VALUE) / RECORD_SIZE);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+
+        File[] existing = listSegments(dir);
+        if (existing.length > 0) {
+            resume(existing[existing.length - 1]);
+        } else {
+            nextSeq = 1;
+            openSegment(nextSeq);
+        }
+
+        long interval = Math.max(10, ServerConfig.getLong("binlog.forceIntervalMs", 200));
+        forcer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "binlog-force");
+            t.setDaemon(true);
+            return t;
+        });
+        forcer.scheduleWithFixedDelay(this::force, interval, interval, TimeUnit.MILLISECONDS);
+        System.out.println("Binary submission log at " + dir + " (next seq " + nextSeq + ").");
+    }
+
+    /** @return the record's sequence number */
+    public synchronized long append(int type, int studentId, int subjectId, int score) throws IOException {
+        if (slot >= recordsPerSegment) {
+            roll();
+        }
+        long seq = nextSeq++;
+        encode(seq, System.currentTimeMillis(), nodeId, studentId, subjectId, score, type);
+        segment.put(slot * RECORD_SIZE, scratch);
+        slot++;
+        appended.incrementAndGet();
+        return seq;
+    }
+
+    private void encode(long seq, long ts, int node, int studentId, int subjectId, int score, int type) {
+        ByteBuffer b = ByteBuffer.wrap(scratch);
+        b.putLong(seq).putLong(ts).putInt(node).putInt(studentId).putInt(subjectId).putInt(score).putInt(type);
+        crc.reset();
+        crc.update(scratch, 0, RECORD_SIZE - 4);
+        b.putInt((int) crc.getValue());
+    }
+
+    /** Decodes one slot, or returns null for an empty/torn slot. */
+    static Record decode(ByteBuffer buf, int offset, CRC32 crc, byte[] tmp) {
+        buf.get(offset, tmp, 0, RECORD_SIZE);
+        ByteBuffer b = ByteBuffer.wrap(tmp);
+        long seq = b.getLong(0);
+        if (seq <= 0) {
+            return null;
+        }
+        crc.reset();
+        crc.update(tmp, 0, RECORD_SIZE - 4);
+        if ((int) crc.getValue() != b.getInt(36)) {
+            return null;
+        }
+        return new Record(seq, b.getLong(8), b.getInt(16), b.getInt(20), b.getInt(24), b.getInt(28), b.getInt(32));
+    }
+
+    private void resume(File last) throws IOException {
+        segmentFile = new RandomAccessFile(last, "rw");
+        segment = segmentFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+                Math.max(segmentFile.length(), (long) recordsPerSegment * RECORD_SIZE));
+        CRC32 c = new CRC32();
+        byte[] tmp = new byte[RECORD_SIZE];
+        long lastSeq = firstSeqOf(last) - 1;
+        int capacity = segment.capacity() / RECORD_SIZE;
+        slot = 0;
+        while (slot < capacity) {
+            Record r = decode(segment, slot * RECORD_SIZE, c, tmp);
+            if (r == null) {
+                break;
+            }
+            lastSeq = r.seq;
+            slot++;
+        }
+        // Wipe a torn tail so readers stop at the same place
+        if (slot < capacity) {
+            segment.put(slot * RECORD_SIZE, new byte[RECORD_SIZE]);
+        }
+        nextSeq = lastSeq + 1;
+        if (slot >= recordsPerSegment) {
+            roll();
+        }
+        segments.incrementAndGet();
+    }
+
+    private void roll() throws IOException {
+        force();
+        segmentFile.close();
+        openSegment(nextSeq);
+    }
+
+    private void openSegment(long firstSeq) throws IOException {
+        File f = new File(dir, String.format("%s%020d%s", PREFIX, firstSeq, SUFFIX));
+        segmentFile = new RandomAccessFile(f, "rw");
+        segment = segmentFile.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+                (long) recordsPerSegment * RECORD_SIZE);
+        slot = 0;
+        segments.incrementAndGet();
+    }
+
+    public void force() {
+        try {
+            // A mapping outlives its channel, so forcing a segment that was just rolled is still safe
+            segment.force();
+        } catch (RuntimeException e) {
+            System.err.println("[BINLOG] force failed: " + e.getMessage());
+        }
+    }
+
+    public void shutdown() {
+        forcer.shutdown();
+        synchronized (this) {
+            force();
+            try {
+                segmentFile.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    public String getStats() {
+        return "BinaryLog: dir=" + dir + " appended=" + appended.get() + " segments=" + segments.get()
+                + " nextSeq=" + nextSeq;
+    }
+
+    /** Segment files of one node directory, oldest first. */
+    static File[] listSegments(File dir) {
+        File[] files = dir.listFiles((d, n) -> n.startsWith(PREFIX) && n.endsWith(SUFFIX));
+        if (files == null) {
+            return new File[0];
+        }
+        Arrays.sort(files, (a, b) -> Long.compare(firstSeqOf(a), firstSeqOf(b)));
+        return files;
+    }
+
+    static long firstSeqOf(File segment) {
+        String n = segment.getName();
+        return Long.parseLong(n.substring(PREFIX.length(), n.length() - SUFFIX.length()));
+    }
+
+    /** One decoded log record. */
+    public static final class Record {
+        public final long seq;
+        public final long timestamp;
+        public final int nodeId;
+        public final int studentId;
+        public final int subjectId;
+        public final int score;
+        public final int type;
+
+        Record(long seq, long timestamp, int nodeId, int studentId, int subjectId, int score, int type) {
+            this.seq = seq;
+            this.timestamp = timestamp;
+            this.nodeId = nodeId;
+            this.studentId = studentId;
+            this.subjectId = subjectId;
+            this.score = score;
+            this.type = type;
+        }
+
+        @Override
+        public String toString() {
+            return seq + "," + timestamp + "," + nodeId + "," + (type == TYPE_RESULT ? "RESULT" : "REPLICA") + ","
+                    + studentId + "," + subjectId + "," + score;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package server;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory "who has submitted what": one bitset of student ids per subject.
+ *
+ * Student ids are dense auto-increment keys, so 5000 students cost about 640
+ * bytes per exam. Lookups are lock-free and never touch the database. Warmed
+ * from student_submissions when the node takes over as leader,
+ * then kept current by the submit and reset paths in QuizServiceImpl.
+ *
+ * Writes are serialized on 'writeLock' (one per submission or reset). While
+ * warm() is querying, they are also buffered and replayed onto the loaded
+ * snapshot before it replaces the live map, so none is lost to the rebuild.
+ */
+public class SubmissionIndex {
+    private static final int OP_ADD = 0;
+    private static final int OP_REMOVE = 1;
+    private static final int OP_REMOVE_SUBJECT = 2;
+
+    private volatile ConcurrentHashMap<Integer, IdSet> bySubject = new ConcurrentHashMap<>();
+    private volatile boolean warm = false;
+    private final Object writeLock = new Object();
+    // { op, subjectId, studentId } written while warm() runs; null otherwise
+    private List<int[]> pending;
+
+    /**
+     * Rebuilds the index from the database. On failure the index stays cold and
+     * callers fall back to querying.
+     */
+    public synchronized void warm(DatabaseManager db) {
+        warm = false;
+        if (db.isMockMode()) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        synchronized (writeLock) {
+            pending = new ArrayList<>();
+        }
+        ConcurrentHashMap<Integer, IdSet> fresh = new ConcurrentHashMap<>();
+        int rows = 0;
+        try (PooledConnection conn = db.borrowConnection();
+                Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT subject_id, student_id FROM student_submissions")) {
+            while (rs.next()) {
+                fresh.computeIfAbsent(rs.getInt(1), k -> new IdSet()).add(rs.getInt(2));
+                rows++;
+            }
+        } catch (SQLException e) {
+            synchronized (writeLock) {
+                pending = null;
+            }
+            System.err.println("Submission index not warmed, falling back to queries: " + e.getMessage());
+            return;
+        }
+        int replayed;
+        synchronized (writeLock) {
+            replayed = pending.size();
+            for (int[] op : pending) {
+                apply(fresh, op[0], op[1], op[2]);
+            }
+            pending = null;
+            bySubject = fresh;
+        }
+        warm = true;
+        System.out.println("Submission index warmed: " + rows + " submissions across " + fresh.size()
+                + " subjects in " + (System.currentTimeMillis() - startTime) + " ms (" + replayed
+                + " concurrent updates replayed).");
+    }
+
+    public boolean isWarm() {
+        return warm;
+    }
+
+    public boolean contains(int subjectId, int studentId) {
+        IdSet set = bySubject.get(subjectId);
+        return set != null && set.contains(studentId);
+    }
+
+    public void add(int subjectId, int studentId) {
+        write(OP_ADD, subjectId, studentId);
+    }
+
+    public void remove(int subjectId, int studentId) {
+        write(OP_REMOVE, subjectId, studentId);
+    }
+
+    public void removeSubject(int subjectId) {
+        write(OP_REMOVE_SUBJECT, subjectId, 0);
+    }
+
+    private void write(int op, int subjectId, int studentId) {
+        synchronized (writeLock) {
+            apply(bySubject, op, subjectId, studentId);
+            if (pending != null) {
+                pending.add(new int[] { op, subjectId, studentId });
+            }
+        }
+    }
+
+    private static void apply(ConcurrentHashMap<Integer, IdSet> map, int op, int subjectId, int studentId) {
+        if (op == OP_ADD) {
+            map.computeIfAbsent(subjectId, k -> new IdSet()).add(studentId);
+        } else if (op == OP_REMOVE) {
+            IdSet set = map.get(subjectId);
+            if (set != null) {
+                set.remove(studentId);
+            }
+        } else {
+            map.remove(subjectId);
+        }
+    }
+
+    public String getStats() {
+        ConcurrentHashMap<Integer, IdSet> map = bySubject;
+        long bytes = 0;
+        int total = 0;
+        for (IdSet set : map.values()) {
+            bytes += set.sizeInBytes();
+            total += set.cardinality();
+        }
+        return "SubmissionIndex: warm=" + warm + " subjects=" + map.size() + " submissions=" + total
+                + " bytes=" + bytes;
+    }
+
+    /**
+     * Growable bitset with lock-free reads. Writes (one per submission or reset)
+     * are serialized; growing copies into a new array before publishing it, so a
+     * reader never sees a partially copied set.
+     */
+    static final class IdSet {
+        private volatile AtomicLongArray words = new AtomicLongArray(16); // ids 0..1023
+
+        boolean contains(int id) {
+            if (id < 0) {
+                return false;
+            }
+            AtomicLongArray w = words;
+            int i = id >>> 6;
+            return i < w.length() && (w.get(i) & (1L << id)) != 0;
+        }
+
+        synchronized void add(int id) {
+            if (id < 0) {
+                return;
+            }
+            int i = id >>> 6;
+            AtomicLongArray w = words;
+            if (i >= w.length()) {
+                int len = w.length();
+                while (len <= i) {
+                    len *= 2;
+                }
+                AtomicLongArray grown = new AtomicLongArray(len);
+                for (int j = 0; j < w.length(); j++) {
+                    grown.set(j, w.get(j));
+                }
+                words = w = grown;
+            }
+            w.set(i, w.get(i) | (1L << id));
+        }
+
+        synchronized void remove(int id) {
+            AtomicLongArray w = words;
+            int i = id >>> 6;
+            if (id >= 0 && i < w.length()) {
+                w.set(i, w.get(i) & ~(1L << id));
+            }
+        }
+
+        int cardinality() {
+            AtomicLongArray w = words;
+            int n = 0;
+            for (int i = 0; i < w.length(); i++) {
+                n += Long.bitCount(w.get(i));
+            }
+            return n;
+        }
+
+        long sizeInBytes() {
+            return words.length() * 8L;
+        }
+    }
+}
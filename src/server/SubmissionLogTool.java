@@ -0,0 +1,187 @@
+package server;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Reads the binary submission log back.
+ *
+ * Usage: java server.SubmissionLogTool (dump | verify | rebuild) [node dir] [--include-reset]
+ * e.g. binlog/node-1
+ *
+ * dump    prints every record as CSV
+ * verify  compares the latest RESULT per (student, subject) with student_submissions
+ * rebuild upserts log results that are missing from or differ in student_submissions
+ *
+ * Results logged before an admin reset of that (student, subject) (see
+ * submission_resets) are reported as RESET and left out of rebuild unless
+ * --include-reset is given. Rebuild only writes student_submissions: the
+ * results history and students.score are left as they are.
+ */
+public class SubmissionLogTool {
+
+    /** Streams every valid record of a node directory in seq order. */
+    public static int replay(File dir, Consumer<SubmissionBinaryLog.Record> sink) throws IOException {
+        int count = 0;
+        CRC32 crc = new CRC32();
+        byte[] tmp = new byte[SubmissionBinaryLog.RECORD_SIZE];
+        for (File seg : SubmissionBinaryLog.listSegments(dir)) {
+            try (RandomAccessFile raf = new RandomAccessFile(seg, "r")) {
+                MappedByteBuffer buf = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+                int slots = buf.capacity() / SubmissionBinaryLog.RECORD_SIZE;
+                for (int i = 0; i < slots; i++) {
+                    SubmissionBinaryLog.Record r = SubmissionBinaryLog.decode(buf, i * SubmissionBinaryLog.RECORD_SIZE,
+                            crc, tmp);
+                    if (r == null) {
+                        break; // End of the written part (or a torn tail)
+                    }
+                    sink.accept(r);
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /** Latest RESULT record per "studentId:subjectId". */
+    static Map<String, SubmissionBinaryLog.Record> latestResults(File dir) throws IOException {
+        Map<String, SubmissionBinaryLog.Record> latest = new HashMap<>();
+        replay(dir, r -> {
+            if (r.type == SubmissionBinaryLog.TYPE_RESULT && r.subjectId > 0) {
+                latest.put(r.studentId + ":" + r.subjectId, r);
+            }
+        });
+        return latest;
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean includeReset = false;
+        List<String> positional = new ArrayList<>();
+        for (String a : args) {
+            if ("--include-reset".equals(a)) {
+                includeReset = true;
+            } else {
+                positional.add(a);
+            }
+        }
+        String mode = positional.size() > 0 ? positional.get(0) : "verify";
+        File dir = new File(positional.size() > 1 ? positional.get(1) : "binlog" + File.separator + "node-1");
+        if (!dir.isDirectory()) {
+            System.err.println("No log directory: " + dir.getAbsolutePath());
+            return;
+        }
+
+        if ("dump".equals(mode)) {
+            System.out.println("seq,timestamp,node,type,student,subject,score");
+            int n = replay(dir, System.out::println);
+            System.err.println(n + " records.");
+            return;
+        }
+
+        long t0 = System.currentTimeMillis();
+        Map<String, SubmissionBinaryLog.Record> latest = latestResults(dir);
+        System.out.println("Log holds " + latest.size() + " distinct results (" + (System.currentTimeMillis() - t0)
+                + " ms).");
+
+        DatabaseManager db = new DatabaseManager();
+        if (db.getPool() == null) {
+            System.err.println("Failed to connect to database.");
+            return;
+        }
+
+        Map<String, Integer> inDb = new HashMap<>();
+        try (PooledConnection conn = db.borrowConnection();
+                Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT student_id, subject_id, score FROM student_submissions")) {
+            while (rs.next()) {
+                inDb.put(rs.getInt(1) + ":" + rs.getInt(2), rs.getInt(3));
+            }
+        }
+        Map<String, Long> resetAt = new HashMap<>();
+        try (PooledConnection conn = db.borrowConnection();
+                Statement stmt = conn.createStatement();
+                ResultSet rs = stmt.executeQuery("SELECT student_id, subject_id, reset_at FROM submission_resets")) {
+            while (rs.next()) {
+                resetAt.put(rs.getInt(1) + ":" + rs.getInt(2), rs.getTimestamp(3).getTime());
+            }
+        }
+
+        int missing = 0;
+        int differ = 0;
+        int reset = 0;
+        Map<String, SubmissionBinaryLog.Record> toFix = new HashMap<>();
+        for (Map.Entry<String, SubmissionBinaryLog.Record> e : latest.entrySet()) {
+            Integer dbScore = inDb.get(e.getKey());
+            Long resetTime = resetAt.get(e.getKey());
+            boolean superseded = resetTime != null && e.getValue().timestamp <= resetTime;
+            if (superseded && (dbScore == null || dbScore != e.getValue().score)) {
+                reset++;
+                if (includeReset) {
+                    toFix.put(e.getKey(), e.getValue());
+                }
+                System.out.println("RESET    " + e.getValue() + " reset_at=" + new Timestamp(resetTime)
+                        + (dbScore != null ? " db=" + dbScore : ""));
+            } else if (dbScore == null) {
+                missing++;
+                toFix.put(e.getKey(), e.getValue());
+                System.out.println("MISSING  " + e.getValue());
+            } else if (dbScore != e.getValue().score) {
+                differ++;
+                toFix.put(e.getKey(), e.getValue());
+                System.out.println("DIFFERS  " + e.getValue() + " db=" + dbScore);
+            }
+        }
+        int onlyInDb = 0;
+        for (String k : inDb.keySet()) {
+            if (!latest.containsKey(k)) {
+                onlyInDb++;
+            }
+        }
+        System.out.println("Verify: matched=" + (latest.size() - missing - differ - reset) + " missing=" + missing
+                + " differ=" + differ + " reset=" + reset + (includeReset ? " (included)" : " (skipped)")
+                + " dbOnly=" + onlyInDb + " (dbOnly rows came from other nodes or older logs)");
+
+        if ("rebuild".equals(mode) && !toFix.isEmpty()) {
+            rebuild(db, toFix);
+        }
+        db.getPool().shutdown();
+    }
+
+    private static void rebuild(DatabaseManager db, Map<String, SubmissionBinaryLog.Record> toFix) throws SQLException {
+        try (PooledConnection conn = db.borrowConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT INTO student_submissions (student_id, subject_id, score, submission_time) VALUES (?, ?, ?, ?) "
+                            + "ON DUPLICATE KEY UPDATE score = VALUES(score), submission_time = VALUES(submission_time)")) {
+                for (SubmissionBinaryLog.Record r : toFix.values()) {
+                    ps.setInt(1, r.studentId);
+                    ps.setInt(2, r.subjectId);
+                    ps.setInt(3, r.score);
+                    ps.setTimestamp(4, new Timestamp(r.timestamp));
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                conn.commit();
+                System.out.println("Rebuilt " + toFix.size()
+                        + " rows in student_submissions (results and students.score not touched).");
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            }
+        }
+    }
+}
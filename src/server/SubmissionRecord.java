@@ -0,0 +1,62 @@
+package server;
+
+/**
+ * One graded submission on its way to the database.
+ * 'seq' is assigned by the local journal and is strictly increasing per node.
+ */
+public class SubmissionRecord {
+    private final long seq;
+    private final int studentId;
+    private final int subjectId;
+    private final int score;
+    private final int totalQuestions;
+    private final long submittedAt;
+
+    public SubmissionRecord(long seq, int studentId, int subjectId, int score, int totalQuestions,
+            long submittedAt) {
+        this.seq = seq;
+        this.studentId = studentId;
+        this.subjectId = subjectId;
+        this.score = score;
+        this.totalQuestions = totalQuestions;
+        this.submittedAt = submittedAt;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public int getStudentId() {
+        return studentId;
+    }
+
+    public int getSubjectId() {
+        return subjectId;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getTotalQuestions() {
+        return totalQuestions;
+    }
+
+    public long getSubmittedAt() {
+        return submittedAt;
+    }
+
+    /** Journal line format: seq,studentId,subjectId,score,totalQuestions,submittedAt */
+    public String toJournalLine() {
+        return seq + "," + studentId + "," + subjectId + "," + score + "," + totalQuestions + "," + submittedAt;
+    }
+
+    public static SubmissionRecord fromJournalLine(String line) {
+        String[] p = line.split(",");
+        if (p.length != 6) {
+            throw new IllegalArgumentException("Malformed journal line: " + line);
+        }
+        return new SubmissionRecord(Long.parseLong(p[0]), Integer.parseInt(p[1]), Integer.parseInt(p[2]),
+                Integer.parseInt(p[3]), Integer.parseInt(p[4]), Long.parseLong(p[5]));
+    }
+}
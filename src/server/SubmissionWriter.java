@@ -0,0 +1,405 @@
+package server;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLDataException;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind pipeline for graded submissions.
+ *
+ * submit() appends the record to a local journal (fsync'd, with concurrent
+ * callers sharing one fsync) and returns; the student is acknowledged at that
+ * point. A single writer thread drains the queue into MySQL in batches, one
+ * transaction per batch (group commit). The journal checkpoint is stored in the
+ * same transaction, so after a crash exactly the uncommitted tail is replayed.
+ *
+ * The queue is bounded: when MySQL falls behind, submit() blocks (backpressure)
+ * instead of letting memory grow without limit.
+ *
+ * The journal file and its checkpoint key are per node (name-node-&lt;id&gt;.log):
+ * nodes may share a working directory and always share the database, and a
+ * node must only ever replay or truncate its own journal. Only the leader runs
+ * a writer (see QuizServiceImpl.onBecomeLeader). Records a writer could not
+ * commit before it stopped are replayed by replayJournal() as soon as the node
+ * is no longer leading, not at its next term: replay skips anything a newer
+ * submission or an admin reset has superseded, so it is safe under any leader.
+ */
+public class SubmissionWriter {
+    private final DatabaseManager db;
+    private final File journalFile;
+    private final String journalName;
+    private final FileChannel journal;
+    private final boolean fsync;
+    private final int batchSize;
+    private final ArrayBlockingQueue<SubmissionRecord> queue;
+
+    // Appends and enqueues happen under this lock so the queue is always in seq order
+    private final ReentrantLock journalLock = new ReentrantLock();
+    private final Object syncLock = new Object();
+    private final Object commitMonitor = new Object();
+    private long nextSeq;
+    private volatile long lastAppendedSeq;
+    private volatile long lastSyncedSeq;
+    private volatile long lastCommittedSeq;
+
+    private final Thread writerThread;
+    private volatile boolean running = true;
+
+    // Metrics
+    private final AtomicLong submitted = new AtomicLong();
+    private final AtomicLong committed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong fsyncs = new AtomicLong();
+    private final AtomicLong backpressureWaits = new AtomicLong();
+    private final AtomicLong deadLetters = new AtomicLong();
+    private volatile int maxBatch = 0;
+
+    public SubmissionWriter(DatabaseManager db, int nodeId) throws IOException, SQLException {
+        this.db = db;
+        this.journalFile = journalFile(nodeId);
+        this.journalName = journalFile.getName();
+        this.fsync = ServerConfig.getBoolean("submissions.journalFsync", true);
+        this.batchSize = Math.max(1, ServerConfig.getInt("submissions.batchSize", 200));
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, ServerConfig.getInt("submissions.queueCapacity", 10000)));
+
+        // Replay anything that was journaled but never committed
+        lastCommittedSeq = db.getJournalCheckpoint(journalName);
+        long maxSeq = 0;
+        List<SubmissionRecord> pending = new ArrayList<>();
+        for (SubmissionRecord rec : readJournal(journalFile)) {
+            maxSeq = Math.max(maxSeq, rec.getSeq());
+            if (rec.getSeq() > lastCommittedSeq) {
+                pending.add(rec);
+            }
+        }
+        replayPending(db, pending, journalName, batchSize);
+        lastCommittedSeq = Math.max(lastCommittedSeq, maxSeq);
+        nextSeq = lastCommittedSeq + 1;
+        lastAppendedSeq = nextSeq - 1;
+        lastSyncedSeq = lastAppendedSeq;
+
+        this.journal = FileChannel.open(journalFile.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+
+        writerThread = new Thread(this::drainLoop, "submission-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        System.out.println("Submission write-behind ready (journal=" + journalFile + ", batch=" + batchSize
+                + ", queue=" + queue.remainingCapacity() + ", fsync=" + fsync + ").");
+    }
+
+    static File journalFile(int nodeId) {
+        return ServerConfig.perNodeFile(ServerConfig.getString("submissions.journal", "submission_journal.log"),
+                nodeId);
+    }
+
+    /**
+     * Commits whatever this node's journal holds beyond its checkpoint. For a
+     * node with no running writer: at startup, and after stepping down with
+     * records still queued. The caller must make sure no writer owns the journal
+     * meanwhile. Truncates the journal once everything is in.
+     *
+     * @throws SQLException if the database is unavailable; nothing is lost and
+     *                      the caller retries later
+     */
+    public static void replayJournal(DatabaseManager db, int nodeId) throws IOException, SQLException {
+        File file = journalFile(nodeId);
+        if (!file.exists() || file.length() == 0) {
+            return;
+        }
+        String name = file.getName();
+        long checkpoint = db.getJournalCheckpoint(name);
+        List<SubmissionRecord> pending = new ArrayList<>();
+        for (SubmissionRecord rec : readJournal(file)) {
+            if (rec.getSeq() > checkpoint) {
+                pending.add(rec);
+            }
+        }
+        replayPending(db, pending, name, Math.max(1, ServerConfig.getInt("submissions.batchSize", 200)));
+        try (FileChannel ch = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            ch.truncate(0);
+            ch.force(true);
+        }
+    }
+
+    /**
+     * Durably journals a graded submission and queues it for the database.
+     * Blocks only if the queue is full.
+     */
+    public SubmissionRecord submit(int studentId, int subjectId, int score, int totalQuestions)
+            throws IOException, InterruptedException {
+        SubmissionRecord rec;
+        journalLock.lockInterruptibly();
+        try {
+            rec = new SubmissionRecord(nextSeq, studentId, subjectId, score, totalQuestions,
+                    System.currentTimeMillis());
+            ByteBuffer buf = ByteBuffer.wrap((rec.toJournalLine() + "\n").getBytes(StandardCharsets.UTF_8));
+            while (buf.hasRemaining()) {
+                journal.write(buf);
+            }
+            nextSeq++;
+            lastAppendedSeq = rec.getSeq();
+            if (!queue.offer(rec)) {
+                backpressureWaits.incrementAndGet();
+                queue.put(rec);
+            }
+        } finally {
+            journalLock.unlock();
+        }
+        if (fsync) {
+            syncUpTo(rec.getSeq());
+        }
+        submitted.incrementAndGet();
+        return rec;
+    }
+
+    /** Group fsync: one force() covers every record appended before it started. */
+    private void syncUpTo(long seq) throws IOException {
+        if (lastSyncedSeq >= seq) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (lastSyncedSeq >= seq) {
+                return;
+            }
+            long target = lastAppendedSeq;
+            journal.force(false);
+            fsyncs.incrementAndGet();
+            lastSyncedSeq = target;
+        }
+    }
+
+    /**
+     * Waits until everything submitted so far is in the database. Used before
+     * operations that must observe all submissions (e.g. an admin reset).
+     */
+    public boolean awaitDrained(long timeoutMs) throws InterruptedException {
+        long target = lastAppendedSeq;
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        synchronized (commitMonitor) {
+            while (lastCommittedSeq < target) {
+                long left = deadline - System.currentTimeMillis();
+                if (left <= 0) {
+                    return false;
+                }
+                commitMonitor.wait(left);
+            }
+        }
+        return true;
+    }
+
+    private void drainLoop() {
+        List<SubmissionRecord> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                SubmissionRecord first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    maybeTruncateJournal();
+                    continue;
+                }
+                batch.clear();
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                if (!writeBatch(batch)) {
+                    // Stopped while the database was failing: the rest stays in the journal
+                    // for replayJournal()
+                    break;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                System.err.println("[WRITE-BEHIND] Unexpected error: " + e.getMessage());
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * @return false if the writer was stopped before the batch could be
+     *         committed; the uncommitted records remain in the journal
+     */
+    private boolean writeBatch(List<SubmissionRecord> batch) throws InterruptedException {
+        // Whole batch in one transaction; transient failures are retried
+        for (int attempt = 1; attempt <= 3; attempt++) {
+            try {
+                db.writeSubmissionBatch(batch, journalName);
+                markCommitted(batch);
+                return true;
+            } catch (SQLException e) {
+                System.err.println("[WRITE-BEHIND] Batch of " + batch.size() + " failed (attempt " + attempt + "): "
+                        + e.getMessage());
+                if (!running) {
+                    return false;
+                }
+                Thread.sleep(200L * attempt);
+            }
+        }
+
+        // Still failing: isolate the bad record(s) so one poison row can't stall the pipeline
+        for (SubmissionRecord rec : batch) {
+            long backoff = 500;
+            while (true) {
+                try {
+                    db.writeSubmissionBatch(Collections.singletonList(rec), journalName);
+                    break;
+                } catch (SQLException e) {
+                    if (isPermanent(e)) {
+                        deadLetters.incrementAndGet();
+                        deadLetter(rec, e);
+                        break;
+                    }
+                    if (!running) {
+                        return false; // Stepped down or shutting down: don't keep writing
+                    }
+                    // Database down: keep the record and wait for it to come back
+                    System.err.println("[WRITE-BEHIND] Waiting for database: " + e.getMessage());
+                    Thread.sleep(backoff);
+                    backoff = Math.min(backoff * 2, 10000);
+                }
+            }
+            markCommitted(Collections.singletonList(rec));
+        }
+        return true;
+    }
+
+    /** Conditional replay (see DatabaseManager.replaySubmissionBatch), isolating poison records. */
+    private static void replayPending(DatabaseManager db, List<SubmissionRecord> pending, String journal,
+            int batchSize) throws SQLException {
+        if (pending.isEmpty()) {
+            return;
+        }
+        int applied = 0;
+        for (int i = 0; i < pending.size(); i += batchSize) {
+            List<SubmissionRecord> batch = pending.subList(i, Math.min(pending.size(), i + batchSize));
+            try {
+                applied += db.replaySubmissionBatch(batch, journal);
+            } catch (SQLException batchError) {
+                for (SubmissionRecord rec : batch) {
+                    try {
+                        applied += db.replaySubmissionBatch(Collections.singletonList(rec), journal);
+                    } catch (SQLException e) {
+                        if (!isPermanent(e)) {
+                            throw e; // Database down: the caller retries the rest later
+                        }
+                        deadLetter(rec, e);
+                        db.advanceJournalCheckpoint(journal, rec.getSeq());
+                    }
+                }
+            }
+        }
+        System.out.println("[WRITE-BEHIND] Replayed " + journal + ": " + applied + " of " + pending.size()
+                + " uncommitted submissions applied, the rest superseded.");
+    }
+
+    /** Constraint or data errors will fail again on retry; anything else is treated as transient. */
+    private static boolean isPermanent(SQLException e) {
+        // BatchUpdateException wraps the driver's real error as its cause
+        for (Throwable cur = e; cur != null; cur = cur.getCause()) {
+            if (cur instanceof SQLIntegrityConstraintViolationException || cur instanceof SQLDataException) {
+                return true;
+            }
+            if (cur instanceof SQLException) {
+                String state = ((SQLException) cur).getSQLState();
+                if (state != null && (state.startsWith("22") || state.startsWith("23"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void markCommitted(List<SubmissionRecord> batch) {
+        batches.incrementAndGet();
+        committed.addAndGet(batch.size());
+        maxBatch = Math.max(maxBatch, batch.size());
+        synchronized (commitMonitor) {
+            lastCommittedSeq = batch.get(batch.size() - 1).getSeq();
+            commitMonitor.notifyAll();
+        }
+    }
+
+    private static void deadLetter(SubmissionRecord rec, SQLException e) {
+        System.err.println("[WRITE-BEHIND] Dropping submission seq " + rec.getSeq() + " (Student " + rec.getStudentId()
+                + ", Subject " + rec.getSubjectId() + "): " + e.getMessage());
+        try (PrintWriter pw = new PrintWriter(new FileWriter("submission_deadletter.log", true))) {
+            pw.println(rec.toJournalLine() + " | " + e.getMessage());
+        } catch (IOException ignored) {
+        }
+    }
+
+    /** Once everything is committed the journal holds nothing worth replaying. */
+    private void maybeTruncateJournal() throws IOException {
+        if (lastCommittedSeq < lastAppendedSeq || journal.size() == 0 || !journalLock.tryLock()) {
+            return;
+        }
+        try {
+            if (queue.isEmpty() && lastCommittedSeq >= lastAppendedSeq) {
+                journal.truncate(0);
+                journal.force(true);
+            }
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    /** Every readable record in the journal, in file order. */
+    private static List<SubmissionRecord> readJournal(File file) {
+        List<SubmissionRecord> records = new ArrayList<>();
+        if (!file.exists()) {
+            return records;
+        }
+        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                try {
+                    records.add(SubmissionRecord.fromJournalLine(line.trim()));
+                } catch (IllegalArgumentException e) {
+                    // Torn last line from a crash mid-append
+                    System.err.println("[WRITE-BEHIND] Skipping unreadable journal line: " + line);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("[WRITE-BEHIND] Could not read journal: " + e.getMessage());
+        }
+        return records;
+    }
+
+    public void shutdown() {
+        running = false; // The writer drains what is queued, then exits
+        try {
+            writerThread.join(10000);
+            journal.close();
+        } catch (Exception ignored) {
+        }
+    }
+
+    public String getStats() {
+        long b = Math.max(1, batches.get());
+        return String.format(
+                "WriteBehind: submitted=%d committed=%d queued=%d batches=%d avgBatch=%.1f maxBatch=%d fsyncs=%d "
+                        + "backpressure=%d deadLetters=%d",
+                submitted.get(), committed.get(), queue.size(), batches.get(), (double) committed.get() / b,
+                maxBatch, fsyncs.get(), backpressureWaits.get(), deadLetters.get());
+    }
+}
@@ -0,0 +1,133 @@
+package test;
+
+import common.ElectionService;
+import common.ReplicationRecord;
+import java.rmi.RemoteException;
+import java.rmi.registry.LocateRegistry;
+import java.rmi.registry.Registry;
+import java.rmi.server.UnicastRemoteObject;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import server.PeerDirectory;
+import server.ReplicationShipper;
+
+/**
+ * Many threads ship at once to an in-process backup that applies batches the
+ * way QuizServer.replicateBatch does (skip seq <= highest applied). Every seq
+ * must be applied; a record enqueued out of order would be skipped.
+ *
+ * Usage: TestReplicationOrdering [port] [threads] [perThread]
+ * Keep threads x perThread under replication.queueCapacity (default 50000): a
+ * full queue drops its oldest records by design, which would also fail here.
+ */
+public class TestReplicationOrdering {
+
+    static class Backup extends UnicastRemoteObject implements ElectionService {
+        private static final long serialVersionUID = 1L;
+        final BitSet applied = new BitSet();
+        long highest;
+        int skipped;
+
+        Backup() throws RemoteException {
+            super();
+        }
+
+        @Override
+        public synchronized long replicateBatch(int senderId, long epoch, long session,
+                List<ReplicationRecord> batch) {
+            for (ReplicationRecord rec : batch) {
+                if (rec.getSeq() > highest) {
+                    applied.set((int) rec.getSeq());
+                    highest = rec.getSeq();
+                } else if (!applied.get((int) rec.getSeq())) {
+                    skipped++; // Arrived after a higher seq: lost
+                }
+            }
+            return highest;
+        }
+
+        @Override
+        public boolean isAlive() {
+            return true;
+        }
+
+        @Override
+        public void startElection(int senderId) {
+        }
+
+        @Override
+        public void declareCoordinator(int leaderId, long epoch) {
+        }
+
+        @Override
+        public int getNodeId() {
+            return 2;
+        }
+
+        @Override
+        public int getCurrentLeaderId() {
+            return 1;
+        }
+
+        @Override
+        public List<String> getClusterTopology() {
+            return Arrays.asList();
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 1199;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int perThread = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+
+        Registry registry = LocateRegistry.createRegistry(port);
+        Backup backup = new Backup();
+        registry.rebind("Node_2", backup);
+
+        PeerDirectory peers = new PeerDirectory(id -> id == 2 ? "127.0.0.1:" + port : null);
+        ReplicationShipper shipper = new ReplicationShipper(1, peers, () -> 0);
+        List<Integer> nodes = Arrays.asList(1, 2);
+
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int base = t * perThread;
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    shipper.ship(nodes, base + i, 1, i % 10);
+                }
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread w : workers) {
+            w.join();
+        }
+        shipper.shutdown(); // Drains every queue before returning
+
+        int total = threads * perThread;
+        int missing;
+        int skipped;
+        synchronized (backup) {
+            missing = total - backup.applied.cardinality();
+            skipped = backup.skipped;
+        }
+        System.out.println(shipper.getStats());
+        System.out.println("Shipped " + total + ", applied " + (total - missing) + ", skipped out of order "
+                + skipped);
+        UnicastRemoteObject.unexportObject(backup, true);
+        UnicastRemoteObject.unexportObject(registry, true);
+        if (missing != 0 || skipped != 0) {
+            System.out.println("FAIL");
+            System.exit(1);
+        }
+        System.out.println("PASS");
+    }
+}